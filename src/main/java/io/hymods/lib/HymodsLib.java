@@ -1,8 +1,19 @@
 package io.hymods.lib;
 
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.modules.entitystats.asset.EntityStatType;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+import com.hypixel.hytale.server.npc.AllNPCsLoadedEvent;
+
+import io.hymods.lib.hud.HudManager;
+import io.hymods.lib.utils.BlockChangeSystems;
+import io.hymods.lib.utils.DisplayNameTable;
+import io.hymods.lib.utils.NPCUtils;
+import io.hymods.lib.utils.StatUtils;
 
 /**
  * HymodsLib - A comprehensive utility library for Hytale mods Provides common
@@ -24,7 +35,31 @@ public class HymodsLib extends JavaPlugin {
     @Deprecated
     @Override
     protected void setup() {
+        // Role indices can change when NPC assets are (re)loaded
+        getEventRegistry().register(AllNPCsLoadedEvent.class, _ -> NPCUtils.invalidateRoleCache());
+        getEventRegistry().register(LoadedAssetsEvent.class, BlockType.class, this::onBlockTypesLoaded);
+        getEventRegistry().register(LoadedAssetsEvent.class, EntityStatType.class, this::onStatTypesLoaded);
+
+        // Don't keep removed worlds alive through their HUD scheduler
+        getEventRegistry().registerGlobal(RemoveWorldEvent.class, event -> HudManager.setUpdateScheduler(event.getWorld(), null));
+
+        // Report blocks broken and placed by entities to WorldUtils' block change listeners
+        getEntityStoreRegistry().registerSystem(new BlockChangeSystems.Break());
+        getEntityStoreRegistry().registerSystem(new BlockChangeSystems.Place());
+
         LOGGER.atInfo().log("HymodsLib ready! Providing utilities for Hytale mod development");
     }
 
+    private void onBlockTypesLoaded(LoadedAssetsEvent<String, BlockType, ?> event) {
+        // Drop names of removed ids, then compute the loaded ones up front. Role
+        // names and ids left out of a partial reload are recomputed on next use.
+        DisplayNameTable.clear();
+        DisplayNameTable.preload(event.getLoadedAssets().keySet());
+    }
+
+    private void onStatTypesLoaded(LoadedAssetsEvent<String, EntityStatType, ?> event) {
+        // Stat indices can change when stat types are (re)loaded
+        StatUtils.invalidateStatIndices();
+    }
+
 }
@@ -0,0 +1,17 @@
+package io.hymods.lib.data;
+
+/**
+ * Current and maximum health of an entity
+ */
+public record EntityHealth(
+    /**
+     * The current health.
+     */
+    float current,
+    /**
+     * The maximum health.
+     */
+    float max
+) {
+
+}
@@ -4,6 +4,8 @@ import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
+import io.hymods.lib.utils.DisplayNameTable;
+
 public record EntityInfo(
     /**
      * A reference to the entity's store.
@@ -35,4 +37,12 @@ public record EntityInfo(
     boolean isNPC
 ) {
 
+    /**
+     * @return the name formatted for display; NPC role names are looked up in
+     *         the {@link DisplayNameTable}, player names are returned as-is
+     */
+    public String displayName() {
+        return this.isNPC ? DisplayNameTable.formatName(this.name) : this.name;
+    }
+
 }
@@ -0,0 +1,20 @@
+package io.hymods.lib.data;
+
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * Health and latency summary of an inspection addon.
+ */
+public record InspectionAddonStatus(
+    String addonId,
+    long invocations,
+    long failures,
+    long overBudgetInvocations,
+    long averageNanos,
+    long p99Nanos,
+    long maxNanos,
+    boolean disabled,
+    @NullableDecl String disabledReason
+) {
+
+}
@@ -0,0 +1,44 @@
+package io.hymods.lib.data;
+
+/**
+ * A distance band used by the NPC level-of-detail scheduler
+ */
+public record NPCLodTier(
+    /**
+     * The name of the tier (e.g., "near", "far").
+     */
+    String name,
+    /**
+     * NPCs whose nearest player is at most this far away belong to this tier.
+     */
+    double maxDistance,
+    /**
+     * Number of ticks between updates, 1 updates every tick and 0 freezes the
+     * NPC.
+     */
+    int updateInterval,
+    /**
+     * NPC state applied when an NPC enters this tier (can be null).
+     */
+    String state
+) {
+
+    /**
+     * Tier that does not change the NPC state.
+     * 
+     * @param name           the name of the tier
+     * @param maxDistance    the maximum distance to the nearest player
+     * @param updateInterval number of ticks between updates, 0 to freeze
+     */
+    public NPCLodTier(String name, double maxDistance, int updateInterval) {
+        this(name, maxDistance, updateInterval, null);
+    }
+
+    /**
+     * @return true if NPCs in this tier are never updated
+     */
+    public boolean isFrozen() {
+        return this.updateInterval <= 0;
+    }
+
+}
@@ -0,0 +1,49 @@
+package io.hymods.lib.data;
+
+import java.util.function.BiConsumer;
+
+import com.hypixel.hytale.component.Holder;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hypixel.hytale.server.npc.entities.NPCEntity;
+
+/**
+ * Describes a single NPC to spawn as part of a batch
+ */
+public record NPCSpawnSpec(
+    /**
+     * The NPC role name.
+     */
+    String roleName,
+    /**
+     * The flock type for group behavior (can be null).
+     */
+    String flockType,
+    /**
+     * The spawn position.
+     */
+    Vector3d position,
+    /**
+     * The spawn rotation.
+     */
+    Vector3f rotation,
+    /**
+     * Callback to customize the NPC before spawning (can be null). Ignored when
+     * a flock type is set.
+     */
+    BiConsumer<NPCEntity, Holder<EntityStore>> customizer
+) {
+
+    /**
+     * Spawn spec without flock or customization.
+     * 
+     * @param roleName the NPC role name
+     * @param position the spawn position
+     * @param rotation the spawn rotation
+     */
+    public NPCSpawnSpec(String roleName, Vector3d position, Vector3f rotation) {
+        this(roleName, null, position, rotation, null);
+    }
+
+}
@@ -0,0 +1,113 @@
+package io.hymods.lib.hud;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.entity.entities.player.hud.CustomUIHud;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+
+/**
+ * Calls the protected {@code CustomUIHud.build(UICommandBuilder)} of other HUDs.
+ *
+ * The method is looked up once and turned into a {@link MethodHandle}, so
+ * invoking it costs about as much as a direct call. Each HUD class gets its own
+ * handle bound to the build() it actually declares, resolved on first use. If
+ * a handle can't be created the reflective {@link Method} is used instead.
+ */
+final class HudBuildInvoker {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final MethodType BUILD_TYPE = MethodType.methodType(void.class, CustomUIHud.class, UICommandBuilder.class);
+
+    private static final Method BUILD_METHOD = findBuildMethod(CustomUIHud.class);
+    private static final MethodHandle BUILD_HANDLE = BUILD_METHOD != null ? toHandle(BUILD_METHOD) : null;
+
+    private static final ClassValue<MethodHandle> HANDLES = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            return resolve(type);
+        }
+    };
+
+    private HudBuildInvoker() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Builds a HUD into the given builder. Exceptions thrown by the HUD are
+     * rethrown as is.
+     *
+     * @param hud The HUD to build
+     * @param uiCommandBuilder The builder to emit commands to
+     */
+    static void build(CustomUIHud hud, UICommandBuilder uiCommandBuilder) {
+        MethodHandle handle = HANDLES.get(hud.getClass());
+        try {
+            if (handle != null) {
+                handle.invokeExact(hud, uiCommandBuilder);
+            } else if (BUILD_METHOD != null) {
+                BUILD_METHOD.invoke(hud, uiCommandBuilder);
+            }
+        } catch (InvocationTargetException e) {
+            throw rethrow(e.getCause());
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static MethodHandle resolve(Class<?> type) {
+        if (BUILD_HANDLE == null) {
+            return null;
+        }
+
+        // Bind directly to the most specific override, falling back to virtual dispatch
+        for (Class<?> current = type; current != null && current != CustomUIHud.class; current = current.getSuperclass()) {
+            Method method = findBuildMethod(current);
+            if (method != null) {
+                MethodHandle handle = toHandle(method);
+                return handle != null ? handle : BUILD_HANDLE;
+            }
+        }
+        return BUILD_HANDLE;
+    }
+
+    private static Method findBuildMethod(Class<?> type) {
+        try {
+            Method method = type.getDeclaredMethod("build", UICommandBuilder.class);
+            method.setAccessible(true);
+            return method;
+        } catch (NoSuchMethodException e) {
+            if (type == CustomUIHud.class) {
+                LOGGER.at(Level.SEVERE).log("Could not find method 'build' in CustomUIHud");
+                LOGGER.at(Level.SEVERE).log(e.getMessage());
+            }
+            return null;
+        } catch (RuntimeException e) {
+            LOGGER.atWarning().log("Could not access method 'build' in " + type.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static MethodHandle toHandle(Method method) {
+        try {
+            return MethodHandles.lookup().unreflect(method).asType(BUILD_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            LOGGER.atWarning().log("Could not create a handle for " + method + ", using reflection: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (e instanceof Error error) {
+            throw error;
+        }
+        return new RuntimeException(e);
+    }
+}
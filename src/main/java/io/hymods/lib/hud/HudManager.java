@@ -3,9 +3,12 @@ package io.hymods.lib.hud;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.entity.entities.player.hud.CustomUIHud;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nonnull;
-import java.util.HashMap;
 
 /**
  * Utility class for managing multiple custom HUDs per player.
@@ -22,13 +25,47 @@ import java.util.HashMap;
  * // Hide a specific HUD
  * HudManager.hideCustomHud(player, playerRef, "mymod:hud");
  * </pre>
+ * 
+ * By default every change is sent right away. Install a {@link HudUpdateScheduler}
+ * for a world with {@link #setUpdateScheduler(World, HudUpdateScheduler)} to
+ * coalesce changes made to its players' HUDs during the same tick into a single
+ * update per player. Each world has its own scheduler, ticked from that world's
+ * thread, so HUDs are only ever changed and sent from the thread of their
+ * player's world. HymodsLib drops a world's scheduler when the world is removed.
  */
 public class HudManager {
-    
+    private static final Map<World, HudUpdateScheduler> updateSchedulers = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the scheduler used to send HUD updates of a world's players.
+     * 
+     * @param world The world
+     * @param scheduler The scheduler, or null to send updates immediately
+     */
+    public static void setUpdateScheduler(@Nonnull World world, HudUpdateScheduler scheduler) {
+        if (scheduler != null) {
+            updateSchedulers.put(world, scheduler);
+        } else {
+            updateSchedulers.remove(world);
+        }
+    }
+
+    /**
+     * Gets the scheduler used to send HUD updates of a world's players.
+     * 
+     * @param world The world
+     * @return The scheduler, or null if updates are sent immediately
+     */
+    public static HudUpdateScheduler getUpdateScheduler(@Nonnull World world) {
+        return updateSchedulers.get(world);
+    }
+
     /**
      * Sets or updates a custom HUD for a player with the given identifier.
      * 
      * If the player already has a MultipleCustomUIHud, the new HUD is added to it.
+     * Setting the HUD instance that is already registered under the identifier only
+     * sends a partial update for it instead of rebuilding every HUD.
      * If the player has a different CustomUIHud, it's preserved as "Unknown".
      * If the player has no HUD, a new MultipleCustomUIHud is created.
      * 
@@ -39,23 +76,52 @@ public class HudManager {
      */
     public static void setCustomHud(@Nonnull Player player, @Nonnull PlayerRef playerRef, 
                                    @Nonnull String hudIdentifier, @Nonnull CustomUIHud customHud) {
+        applyCustomHud(player, playerRef, hudIdentifier, customHud, false, 0);
+    }
+
+    /**
+     * Sets or updates a custom HUD for a player with the given identifier and z-order.
+     * 
+     * HUDs with a higher z-order are drawn on top of HUDs with a lower one; HUDs
+     * with the same z-order are drawn in the order they were added.
+     * 
+     * @param player The player to set the HUD for
+     * @param playerRef The player reference
+     * @param hudIdentifier A unique identifier for this HUD (e.g., "minimap", "whatisthat")
+     * @param customHud The custom HUD to add or update
+     * @param zOrder The z-order of the HUD
+     */
+    public static void setCustomHud(@Nonnull Player player, @Nonnull PlayerRef playerRef, 
+                                   @Nonnull String hudIdentifier, @Nonnull CustomUIHud customHud, int zOrder) {
+        applyCustomHud(player, playerRef, hudIdentifier, customHud, true, zOrder);
+    }
+
+    private static void applyCustomHud(Player player, PlayerRef playerRef, String hudIdentifier,
+                                       CustomUIHud customHud, boolean hasZOrder, int zOrder) {
         var currentCustomHud = player.getHudManager().getCustomHud();
         if (currentCustomHud instanceof MultipleCustomUIHud multipleCustomUIHud) {
             // Add or update the HUD in the existing MultipleCustomUIHud
-            multipleCustomUIHud.getCustomHuds().put(hudIdentifier, customHud);
-            player.getHudManager().setCustomHud(playerRef, multipleCustomUIHud);
-            multipleCustomUIHud.show();
+            putHud(multipleCustomUIHud, hudIdentifier, customHud, hasZOrder, zOrder);
+            sendUpdate(player, multipleCustomUIHud);
         } else {
             // Create a new MultipleCustomUIHud
-            var huds = new HashMap<String, CustomUIHud>();
-            huds.put(hudIdentifier, customHud);
-            // Preserve existing HUD if present
+            var multipleHud = new MultipleCustomUIHud(playerRef);
+            // Preserve existing HUD if present, underneath the new one
             if (currentCustomHud != null) {
-                huds.put("Unknown", currentCustomHud);
+                multipleHud.setHud("Unknown", currentCustomHud);
             }
-            var multipleHud = new MultipleCustomUIHud(playerRef, huds);
+            putHud(multipleHud, hudIdentifier, customHud, hasZOrder, zOrder);
             player.getHudManager().setCustomHud(playerRef, multipleHud);
-            multipleHud.show();
+            sendRebuild(player, multipleHud);
+        }
+    }
+
+    private static void putHud(MultipleCustomUIHud multipleHud, String hudIdentifier, CustomUIHud customHud,
+                               boolean hasZOrder, int zOrder) {
+        if (hasZOrder) {
+            multipleHud.setHud(hudIdentifier, customHud, zOrder);
+        } else {
+            multipleHud.setHud(hudIdentifier, customHud);
         }
     }
 
@@ -70,9 +136,26 @@ public class HudManager {
                                     @Nonnull String hudIdentifier) {
         var currentCustomHud = player.getHudManager().getCustomHud();
         if (currentCustomHud instanceof MultipleCustomUIHud multipleCustomUIHud) {
-            multipleCustomUIHud.getCustomHuds().remove(hudIdentifier);
-            player.getHudManager().setCustomHud(playerRef, multipleCustomUIHud);
-            multipleCustomUIHud.show();
+            if (multipleCustomUIHud.removeHud(hudIdentifier) != null) {
+                sendUpdate(player, multipleCustomUIHud);
+            }
+        }
+    }
+
+    /**
+     * Sends an update for a single HUD after its state changed.
+     * 
+     * HUDs implementing {@link IncrementalHud} are updated in place; other HUDs
+     * cause a full rebuild.
+     * 
+     * @param player The player whose HUD changed
+     * @param hudIdentifier The identifier of the HUD that changed
+     */
+    public static void updateCustomHud(@Nonnull Player player, @Nonnull String hudIdentifier) {
+        var currentCustomHud = player.getHudManager().getCustomHud();
+        if (currentCustomHud instanceof MultipleCustomUIHud multipleCustomUIHud) {
+            multipleCustomUIHud.markDirty(hudIdentifier);
+            sendUpdate(player, multipleCustomUIHud);
         }
     }
     
@@ -86,7 +169,7 @@ public class HudManager {
     public static CustomUIHud getCustomHud(@Nonnull Player player, @Nonnull String hudIdentifier) {
         var currentCustomHud = player.getHudManager().getCustomHud();
         if (currentCustomHud instanceof MultipleCustomUIHud multipleCustomUIHud) {
-            return multipleCustomUIHud.getCustomHuds().get(hudIdentifier);
+            return multipleCustomUIHud.getHud(hudIdentifier);
         }
         return null;
     }
@@ -101,10 +184,31 @@ public class HudManager {
      */
     public static void refreshHud(@Nonnull Player player) {
         var currentCustomHud = player.getHudManager().getCustomHud();
-        if (currentCustomHud instanceof MultipleCustomUIHud multipleCustomUIHud) {
-            multipleCustomUIHud.show();
-        } else if (currentCustomHud != null) {
-            currentCustomHud.show();
+        if (currentCustomHud != null) {
+            sendRebuild(player, currentCustomHud);
+        }
+    }
+
+    private static HudUpdateScheduler schedulerOf(Player player) {
+        World world = player.getWorld();
+        return world != null ? updateSchedulers.get(world) : null;
+    }
+
+    private static void sendUpdate(Player player, MultipleCustomUIHud hud) {
+        HudUpdateScheduler scheduler = schedulerOf(player);
+        if (scheduler != null) {
+            scheduler.requestUpdate(hud);
+        } else {
+            hud.flush();
+        }
+    }
+
+    private static void sendRebuild(Player player, CustomUIHud hud) {
+        HudUpdateScheduler scheduler = schedulerOf(player);
+        if (scheduler != null) {
+            scheduler.requestRebuild(hud);
+        } else {
+            hud.show();
         }
     }
 }
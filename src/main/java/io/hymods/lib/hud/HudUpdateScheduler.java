@@ -0,0 +1,194 @@
+package io.hymods.lib.hud;
+
+import com.hypixel.hytale.server.core.entity.entities.player.hud.CustomUIHud;
+import com.hypixel.hytale.server.core.universe.world.World;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Coalesces HUD updates so each player's HUD is sent at most once per tick.
+ *
+ * When several mods change a player's HUDs during the same tick, every change
+ * would otherwise send its own update. Once installed for a world with
+ * {@link HudManager#setUpdateScheduler(World, HudUpdateScheduler)}, HudManager
+ * only records the requests for that world's players, and {@link #tick()} sends one update per HUD: a full
+ * rebuild if any request asked for one, otherwise a partial update of the dirty
+ * sub-HUDs. HUDs are sent in the order they were first requested.
+ *
+ * A minimum interval can be set to further limit how often the same HUD is
+ * sent; requests arriving too early are kept until the interval has passed.
+ *
+ * Usage:
+ * <pre>
+ * HudUpdateScheduler scheduler = new HudUpdateScheduler();
+ * HudManager.setUpdateScheduler(world, scheduler);
+ *
+ * // From the world's tick
+ * scheduler.tick();
+ * </pre>
+ *
+ * A scheduler is bound to a single world: {@link #tick()} must be called from
+ * that world's thread, the same thread HudManager changes its players' HUDs on.
+ */
+public class HudUpdateScheduler {
+    // Pending HUD -> whether a full rebuild was requested
+    private final Map<CustomUIHud, Boolean> pending = new LinkedHashMap<>();
+    private final Map<CustomUIHud, Long> lastSentTick = new WeakHashMap<>();
+    private final List<CustomUIHud> due = new ArrayList<>();
+    private final List<Boolean> dueFull = new ArrayList<>();
+
+    private int minIntervalTicks;
+    private long tickCount = 0;
+
+    private long requested = 0;
+    private long coalesced = 0;
+    private long sent = 0;
+    private long deferred = 0;
+
+    /**
+     * Creates a scheduler sending each HUD at most once per tick
+     */
+    public HudUpdateScheduler() {
+        this(1);
+    }
+
+    /**
+     * Creates a scheduler
+     *
+     * @param minIntervalTicks Minimum number of ticks between two updates of the same HUD
+     */
+    public HudUpdateScheduler(int minIntervalTicks) {
+        this.minIntervalTicks = Math.max(1, minIntervalTicks);
+    }
+
+    /**
+     * Requests a full rebuild of a HUD
+     *
+     * @param hud The HUD to rebuild
+     */
+    public synchronized void requestRebuild(@NonNullDecl CustomUIHud hud) {
+        request(hud, true);
+    }
+
+    /**
+     * Requests an update of a HUD. For {@link MultipleCustomUIHud} only dirty
+     * sub-HUDs are sent; other HUDs are rebuilt.
+     *
+     * @param hud The HUD to update
+     */
+    public synchronized void requestUpdate(@NonNullDecl CustomUIHud hud) {
+        request(hud, !(hud instanceof MultipleCustomUIHud));
+    }
+
+    private void request(CustomUIHud hud, boolean full) {
+        this.requested++;
+
+        Boolean previous = this.pending.get(hud);
+        if (previous != null) {
+            this.coalesced++;
+            if (full && !previous) {
+                this.pending.put(hud, true);
+            }
+            return;
+        }
+        this.pending.put(hud, full);
+    }
+
+    /**
+     * Sends pending updates that are due. Call this once per tick from the
+     * world's thread.
+     */
+    public void tick() {
+        synchronized (this) {
+            long tick = this.tickCount++;
+
+            Iterator<Map.Entry<CustomUIHud, Boolean>> iterator = this.pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<CustomUIHud, Boolean> entry = iterator.next();
+                Long last = this.lastSentTick.get(entry.getKey());
+                if (last != null && tick - last < this.minIntervalTicks) {
+                    this.deferred++;
+                    continue;
+                }
+
+                this.due.add(entry.getKey());
+                this.dueFull.add(entry.getValue());
+                this.lastSentTick.put(entry.getKey(), tick);
+                iterator.remove();
+            }
+            this.sent += this.due.size();
+        }
+
+        // Send outside of the lock, HUD builds can be slow
+        try {
+            for (int i = 0; i < this.due.size(); i++) {
+                CustomUIHud hud = this.due.get(i);
+                if (!this.dueFull.get(i) && hud instanceof MultipleCustomUIHud multipleCustomUIHud) {
+                    multipleCustomUIHud.flush();
+                } else {
+                    hud.show();
+                }
+            }
+        } finally {
+            this.due.clear();
+            this.dueFull.clear();
+        }
+    }
+
+    /**
+     * Sets the minimum number of ticks between two updates of the same HUD
+     *
+     * @param minIntervalTicks The interval, at least 1
+     */
+    public synchronized void setMinIntervalTicks(int minIntervalTicks) {
+        this.minIntervalTicks = Math.max(1, minIntervalTicks);
+    }
+
+    /**
+     * @return the number of HUDs waiting to be sent
+     */
+    public synchronized int getPendingCount() {
+        return this.pending.size();
+    }
+
+    /**
+     * Drops all pending updates
+     */
+    public synchronized void clear() {
+        this.pending.clear();
+    }
+
+    /**
+     * @return the scheduler counters
+     */
+    public synchronized Stats getStats() {
+        return new Stats(this.requested, this.coalesced, this.sent, this.deferred);
+    }
+
+    /**
+     * Resets the scheduler counters
+     */
+    public synchronized void resetStats() {
+        this.requested = 0;
+        this.coalesced = 0;
+        this.sent = 0;
+        this.deferred = 0;
+    }
+
+    /**
+     * Scheduler counters
+     *
+     * @param requested Number of update requests
+     * @param coalesced Number of requests merged into an already pending update
+     * @param sent      Number of updates sent
+     * @param deferred  Number of times a pending update was held back by the minimum interval
+     */
+    public record Stats(long requested, long coalesced, long sent, long deferred) {
+    }
+}
@@ -0,0 +1,23 @@
+package io.hymods.lib.hud;
+
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+/**
+ * A HUD that can update itself without being rebuilt.
+ *
+ * When a sub-HUD of a {@link MultipleCustomUIHud} is marked dirty, HUDs
+ * implementing this interface only emit the commands from
+ * {@link #buildUpdate(UICommandBuilder)} (e.g., setting a label's text), which
+ * are sent as a partial update. Dirty HUDs that do not implement it cause a
+ * full rebuild of every HUD, since their build() typically appends documents.
+ */
+public interface IncrementalHud {
+
+    /**
+     * Emits the commands updating an already built HUD to its current state
+     *
+     * @param uiCommandBuilder The builder to emit commands to
+     */
+    void buildUpdate(@NonNullDecl UICommandBuilder uiCommandBuilder);
+}
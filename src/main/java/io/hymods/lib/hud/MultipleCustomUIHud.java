@@ -5,57 +5,392 @@ import com.hypixel.hytale.server.core.entity.entities.player.hud.CustomUIHud;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.logging.Level;
 
 /**
  * A custom HUD implementation that can contain and render multiple HUDs simultaneously.
- * 
+ *
  * Since Hytale does not natively support showing multiple custom HUDs at once,
- * this class wraps multiple CustomUIHud instances and renders them all by using
- * reflection to call their protected build() methods.
+ * this class wraps multiple CustomUIHud instances and renders them all by calling
+ * their protected build() methods through {@link HudBuildInvoker}.
+ *
+ * Sub-HUDs are built in ascending z-order, then in the order they were first
+ * added, so HUDs with a higher z-order are drawn on top. The set of sub-HUDs is
+ * an immutable snapshot replaced on every change: HUDs can be added, removed or
+ * marked dirty from any thread, while building never takes a lock.
+ *
+ * Sub-HUDs are tracked individually: {@link #markDirty(String)} flags a single
+ * HUD as changed and {@link #flush()} sends only the dirty HUDs as a partial
+ * update (see {@link IncrementalHud}). A full rebuild only happens when HUDs are
+ * added, replaced, reordered or removed.
  */
 public class MultipleCustomUIHud extends CustomUIHud {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
-    private static Method BUILD_METHOD;
+    private static final Comparator<Layer> LAYER_ORDER = Comparator.comparingInt(Layer::zOrder).thenComparingLong(Layer::sequence);
 
-    static {
-        try {
-            BUILD_METHOD = CustomUIHud.class.getDeclaredMethod("build", UICommandBuilder.class);
-            BUILD_METHOD.setAccessible(true);
-        } catch (NoSuchMethodException e) {
-            BUILD_METHOD = null;
-            LOGGER.at(Level.SEVERE).log("Could not find method 'build' in CustomUIHud");
-            LOGGER.at(Level.SEVERE).log(e.getMessage());
-        }
+    private final Object writeLock = new Object();
+    private volatile Layers layers = Layers.EMPTY;
+    private long nextSequence = 0;
+
+    // Snapshot as of the last full build, to detect structural changes
+    private volatile Layers builtLayers = null;
+    private final Set<String> dirtyHuds = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private long version = 0;
+
+    public MultipleCustomUIHud(@NonNullDecl PlayerRef playerRef) {
+        super(playerRef);
     }
 
-    private final HashMap<String, CustomUIHud> customHuds;
+    public MultipleCustomUIHud(@NonNullDecl PlayerRef playerRef, Map<String, ? extends CustomUIHud> customHuds) {
+        super(playerRef);
+        for (Map.Entry<String, ? extends CustomUIHud> entry : customHuds.entrySet()) {
+            setHud(entry.getKey(), entry.getValue());
+        }
+    }
 
+    /**
+     * @deprecated the HUDs are copied, later changes to the map are not seen; use
+     *             {@link #MultipleCustomUIHud(PlayerRef, Map)} and {@link #setHud(String, CustomUIHud)}
+     */
+    @Deprecated
     public MultipleCustomUIHud(@NonNullDecl PlayerRef playerRef, HashMap<String, CustomUIHud> customHuds) {
-        super(playerRef);
-        this.customHuds = customHuds;
+        this(playerRef, (Map<String, CustomUIHud>) customHuds);
     }
 
     @Override
     protected void build(@NonNullDecl UICommandBuilder uiCommandBuilder) {
-        for (String key : customHuds.keySet()) {
-            var hud = customHuds.get(key);
-            try {
-                if (BUILD_METHOD != null) {
-                    BUILD_METHOD.invoke(hud, uiCommandBuilder);
-                }
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                LOGGER.at(Level.SEVERE).log("Failed to build HUD '" + key + "': " + e.getMessage());
-                throw new RuntimeException(e);
+        Layers current = this.layers;
+        for (Layer layer : current.ordered()) {
+            // Cleared first so changes made while building are sent next time
+            dirtyHuds.remove(layer.id());
+            buildHud(layer.id(), layer.hud(), uiCommandBuilder);
+        }
+
+        this.builtLayers = current;
+    }
+
+    /**
+     * Adds or replaces a HUD, keeping its z-order if it already exists (0 for
+     * new HUDs). Setting the same instance again only marks it dirty.
+     *
+     * @param hudIdentifier The HUD identifier
+     * @param customHud The HUD
+     */
+    public void setHud(@NonNullDecl String hudIdentifier, @NonNullDecl CustomUIHud customHud) {
+        synchronized (writeLock) {
+            Layer existing = layers.byId().get(hudIdentifier);
+            setHud(hudIdentifier, customHud, existing != null ? existing.zOrder() : 0);
+        }
+    }
+
+    /**
+     * Adds or replaces a HUD with the given z-order. Setting the same instance
+     * with the same z-order again only marks it dirty.
+     *
+     * @param hudIdentifier The HUD identifier
+     * @param customHud The HUD
+     * @param zOrder The z-order, HUDs with a higher z-order are drawn on top
+     */
+    public void setHud(@NonNullDecl String hudIdentifier, @NonNullDecl CustomUIHud customHud, int zOrder) {
+        synchronized (writeLock) {
+            Layer existing = layers.byId().get(hudIdentifier);
+            if (existing != null && existing.hud() == customHud && existing.zOrder() == zOrder) {
+                markDirty(hudIdentifier);
+                return;
+            }
+
+            long sequence = existing != null ? existing.sequence() : nextSequence++;
+            Map<String, Layer> byId = new LinkedHashMap<>(layers.byId());
+            byId.put(hudIdentifier, new Layer(hudIdentifier, customHud, zOrder, sequence));
+            layers = Layers.of(byId);
+            versions.put(hudIdentifier, ++version);
+        }
+    }
+
+    /**
+     * Removes a HUD
+     *
+     * @param hudIdentifier The HUD identifier
+     * @return The removed HUD, or null if there was none
+     */
+    public CustomUIHud removeHud(@NonNullDecl String hudIdentifier) {
+        synchronized (writeLock) {
+            if (!layers.byId().containsKey(hudIdentifier)) {
+                return null;
+            }
+
+            Map<String, Layer> byId = new LinkedHashMap<>(layers.byId());
+            Layer removed = byId.remove(hudIdentifier);
+            layers = Layers.of(byId);
+            versions.remove(hudIdentifier);
+            dirtyHuds.remove(hudIdentifier);
+            return removed.hud();
+        }
+    }
+
+    /**
+     * Gets a HUD by identifier
+     *
+     * @param hudIdentifier The HUD identifier
+     * @return The HUD, or null if there is none
+     */
+    public @NullableDecl CustomUIHud getHud(@NonNullDecl String hudIdentifier) {
+        Layer layer = layers.byId().get(hudIdentifier);
+        return layer != null ? layer.hud() : null;
+    }
+
+    /**
+     * Gets the z-order of a HUD
+     *
+     * @param hudIdentifier The HUD identifier
+     * @return The z-order, or 0 if there is no such HUD
+     */
+    public int getZOrder(@NonNullDecl String hudIdentifier) {
+        Layer layer = layers.byId().get(hudIdentifier);
+        return layer != null ? layer.zOrder() : 0;
+    }
+
+    /**
+     * Flags a HUD as changed so it is sent on the next {@link #flush()}
+     *
+     * @param hudIdentifier The HUD identifier
+     */
+    public void markDirty(@NonNullDecl String hudIdentifier) {
+        synchronized (writeLock) {
+            if (layers.byId().containsKey(hudIdentifier)) {
+                dirtyHuds.add(hudIdentifier);
+                versions.put(hudIdentifier, ++version);
             }
         }
     }
 
+    /**
+     * @return true if a HUD was marked dirty since it was last sent
+     */
+    public boolean isDirty(@NonNullDecl String hudIdentifier) {
+        return dirtyHuds.contains(hudIdentifier);
+    }
+
+    /**
+     * @return the version at which a HUD was last set or marked dirty, 0 if unknown
+     */
+    public long getVersion(@NonNullDecl String hudIdentifier) {
+        return versions.getOrDefault(hudIdentifier, 0L);
+    }
+
+    /**
+     * @return true if HUDs were added, replaced, reordered or removed since the last full build
+     */
+    public boolean hasStructuralChanges() {
+        return layers != builtLayers;
+    }
+
+    /**
+     * Sends pending changes to the client: a full rebuild after structural
+     * changes, otherwise a partial update containing only the dirty HUDs.
+     */
+    public void flush() {
+        if (hasStructuralChanges()) {
+            show();
+            return;
+        }
+        if (dirtyHuds.isEmpty()) {
+            return;
+        }
+
+        UICommandBuilder uiCommandBuilder = new UICommandBuilder();
+        for (Layer layer : layers.ordered()) {
+            if (!dirtyHuds.contains(layer.id())) {
+                continue;
+            }
+            if (!(layer.hud() instanceof IncrementalHud incrementalHud)) {
+                // Can't be updated in place
+                show();
+                return;
+            }
+
+            dirtyHuds.remove(layer.id());
+            incrementalHud.buildUpdate(uiCommandBuilder);
+        }
+
+        update(false, uiCommandBuilder);
+    }
+
+    private void buildHud(String key, CustomUIHud hud, UICommandBuilder uiCommandBuilder) {
+        try {
+            HudBuildInvoker.build(hud, uiCommandBuilder);
+        } catch (RuntimeException e) {
+            LOGGER.at(Level.SEVERE).log("Failed to build HUD '" + key + "': " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the HUDs in build order.
+     *
+     * @return An unmodifiable snapshot of the HUDs by identifier
+     */
+    public Map<String, CustomUIHud> getHuds() {
+        return layers.view();
+    }
+
+    /**
+     * Gets a copy of the HUDs in build order.
+     *
+     * @return A copy of the HUDs by identifier. {@code put}, {@code putAll},
+     *         {@code remove} and {@code clear} are applied to this HUD through
+     *         {@link #setHud(String, CustomUIHud)} and {@link #removeHud(String)};
+     *         other changes throw {@link UnsupportedOperationException}
+     * @deprecated use {@link #getHuds()}, which does not copy, and
+     *             {@link #setHud(String, CustomUIHud)} / {@link #removeHud(String)}
+     */
+    @Deprecated
     public HashMap<String, CustomUIHud> getCustomHuds() {
-        return customHuds;
+        return new WriteThroughHuds(this);
+    }
+
+    private record Layer(String id, CustomUIHud hud, int zOrder, long sequence) {
+    }
+
+    /**
+     * Map returned by {@link #getCustomHuds()}, which used to be the live backing
+     * map. The basic changes are forwarded to the owning HUD; the rest fail
+     * rather than being silently lost.
+     */
+    private static final class WriteThroughHuds extends LinkedHashMap<String, CustomUIHud> {
+        private final transient MultipleCustomUIHud owner;
+
+        private WriteThroughHuds(MultipleCustomUIHud owner) {
+            super(owner.getHuds());
+            this.owner = owner;
+        }
+
+        @Override
+        public CustomUIHud put(String hudIdentifier, CustomUIHud customHud) {
+            CustomUIHud previous = owner.getHud(hudIdentifier);
+            owner.setHud(hudIdentifier, customHud);
+            super.put(hudIdentifier, customHud);
+            return previous;
+        }
+
+        @Override
+        public void putAll(Map<? extends String, ? extends CustomUIHud> huds) {
+            for (Map.Entry<? extends String, ? extends CustomUIHud> entry : huds.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public CustomUIHud remove(Object hudIdentifier) {
+            if (!(hudIdentifier instanceof String id)) {
+                return null;
+            }
+            super.remove(id);
+            return owner.removeHud(id);
+        }
+
+        @Override
+        public void clear() {
+            for (String id : new ArrayList<>(super.keySet())) {
+                owner.removeHud(id);
+            }
+            super.clear();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Collections.unmodifiableSet(super.keySet());
+        }
+
+        @Override
+        public Collection<CustomUIHud> values() {
+            return Collections.unmodifiableCollection(super.values());
+        }
+
+        @Override
+        public Set<Map.Entry<String, CustomUIHud>> entrySet() {
+            return Collections.unmodifiableSet(super.entrySet());
+        }
+
+        @Override
+        public boolean remove(Object hudIdentifier, Object customHud) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CustomUIHud putIfAbsent(String hudIdentifier, CustomUIHud customHud) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CustomUIHud replace(String hudIdentifier, CustomUIHud customHud) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean replace(String hudIdentifier, CustomUIHud oldHud, CustomUIHud newHud) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void replaceAll(BiFunction<? super String, ? super CustomUIHud, ? extends CustomUIHud> function) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CustomUIHud computeIfAbsent(String hudIdentifier, Function<? super String, ? extends CustomUIHud> function) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CustomUIHud computeIfPresent(String hudIdentifier,
+                BiFunction<? super String, ? super CustomUIHud, ? extends CustomUIHud> function) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CustomUIHud compute(String hudIdentifier,
+                BiFunction<? super String, ? super CustomUIHud, ? extends CustomUIHud> function) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CustomUIHud merge(String hudIdentifier, CustomUIHud customHud,
+                BiFunction<? super CustomUIHud, ? super CustomUIHud, ? extends CustomUIHud> function) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Immutable snapshot of the sub-HUDs
+     */
+    private record Layers(Map<String, Layer> byId, List<Layer> ordered, Map<String, CustomUIHud> view) {
+        private static final Layers EMPTY = new Layers(Map.of(), List.of(), Map.of());
+
+        private static Layers of(Map<String, Layer> byId) {
+            List<Layer> ordered = new ArrayList<>(byId.values());
+            ordered.sort(LAYER_ORDER);
+
+            Map<String, CustomUIHud> view = new LinkedHashMap<>();
+            for (Layer layer : ordered) {
+                view.put(layer.id(), layer.hud());
+            }
+            return new Layers(Collections.unmodifiableMap(byId), List.copyOf(ordered), Collections.unmodifiableMap(view));
+        }
     }
 }
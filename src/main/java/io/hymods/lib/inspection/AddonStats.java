@@ -0,0 +1,163 @@
+package io.hymods.lib.inspection;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.hymods.lib.data.InspectionAddonStatus;
+
+/**
+ * Invocation counters and latency histogram for a single
+ * {@link InspectionAddon}.
+ *
+ * Latencies are bucketed by powers of two microseconds (bucket 0 holds calls
+ * under 1µs, bucket 1 under 2µs, and so on), which is enough to spot a slow
+ * addon without keeping every sample.
+ */
+public final class AddonStats {
+    public static final int BUCKETS = 24;
+
+    private final String addonId;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder overBudget = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger consecutiveOverBudget = new AtomicInteger();
+
+    private volatile boolean disabled = false;
+    private volatile String disabledReason = null;
+
+    AddonStats(String addonId) {
+        this.addonId = addonId;
+    }
+
+    /**
+     * Records a successful invocation
+     *
+     * @return the number of consecutive over-budget invocations, 0 if this one
+     *         was within budget
+     */
+    int recordSuccess(long elapsedNanos, long budgetNanos) {
+        record(elapsedNanos);
+        this.consecutiveFailures.set(0);
+
+        if (budgetNanos > 0 && elapsedNanos > budgetNanos) {
+            this.overBudget.increment();
+            return this.consecutiveOverBudget.incrementAndGet();
+        }
+        this.consecutiveOverBudget.set(0);
+        return 0;
+    }
+
+    /**
+     * Records a failed invocation
+     *
+     * @return the number of consecutive failures
+     */
+    int recordFailure(long elapsedNanos) {
+        record(elapsedNanos);
+        this.failures.increment();
+        return this.consecutiveFailures.incrementAndGet();
+    }
+
+    private void record(long elapsedNanos) {
+        this.invocations.increment();
+        this.totalNanos.add(elapsedNanos);
+        this.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        this.histogram.incrementAndGet(bucketOf(elapsedNanos));
+    }
+
+    boolean isDisabled() {
+        return this.disabled;
+    }
+
+    void disable(String reason) {
+        this.disabledReason = reason;
+        this.disabled = true;
+    }
+
+    void enable() {
+        this.consecutiveFailures.set(0);
+        this.consecutiveOverBudget.set(0);
+        this.disabledReason = null;
+        this.disabled = false;
+    }
+
+    /**
+     * Resets all counters, leaving the enabled state untouched
+     */
+    void reset() {
+        this.invocations.reset();
+        this.failures.reset();
+        this.overBudget.reset();
+        this.totalNanos.reset();
+        this.maxNanos.set(0);
+        for (int i = 0; i < BUCKETS; i++) {
+            this.histogram.set(i, 0);
+        }
+    }
+
+    /**
+     * @return the upper latency bound of the bucket containing the given
+     *         percentile (0-1), in nanoseconds
+     */
+    long percentileNanos(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += this.histogram.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.histogram.get(i);
+            if (seen >= target) {
+                return (1L << i) * 1000L;
+            }
+        }
+        return (1L << (BUCKETS - 1)) * 1000L;
+    }
+
+    /**
+     * @return the number of calls in each latency bucket
+     */
+    public long[] getHistogram() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = this.histogram.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * @return a point-in-time status of the addon
+     */
+    public InspectionAddonStatus toStatus() {
+        long count = this.invocations.sum();
+        return new InspectionAddonStatus(
+            this.addonId,
+            count,
+            this.failures.sum(),
+            this.overBudget.sum(),
+            count > 0 ? this.totalNanos.sum() / count : 0,
+            percentileNanos(0.99),
+            this.maxNanos.get(),
+            this.disabled,
+            this.disabledReason
+        );
+    }
+
+    private static int bucketOf(long elapsedNanos) {
+        long micros = elapsedNanos / 1000L;
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+}
@@ -0,0 +1,46 @@
+package io.hymods.lib.inspection;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import io.hymods.lib.data.InspectionLine;
+
+/**
+ * Inspection addon whose lines are expensive to compute (container contents,
+ * crafting estimates, ...).
+ *
+ * The async methods are called on the world thread when a player starts looking
+ * at a new target. Implementations should read whatever they need from the
+ * world synchronously, then finish the work elsewhere and complete the returned
+ * future. Futures are cancelled when the player looks away before they
+ * complete.
+ *
+ * Used by {@link ProgressiveInspector}; the synchronous augment methods are
+ * still called for every inspection and can add cheap placeholder lines.
+ */
+public interface AsyncInspectionAddon extends InspectionAddon {
+
+    /**
+     * @return the extra lines for a block, or null if this addon has nothing
+     *         to add
+     */
+    default @NullableDecl CompletableFuture<List<InspectionLine>> augmentBlockAsync(BlockType blockType, Vector3d blockPosition) {
+        return null;
+    }
+
+    /**
+     * @return the extra lines for an entity, or null if this addon has nothing
+     *         to add
+     */
+    default @NullableDecl CompletableFuture<List<InspectionLine>> augmentEntityAsync(Store<EntityStore> store, Ref<EntityStore> entityRef) {
+        return null;
+    }
+}
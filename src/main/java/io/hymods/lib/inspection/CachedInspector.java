@@ -0,0 +1,189 @@
+package io.hymods.lib.inspection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import io.hymods.lib.data.EntityHealth;
+import io.hymods.lib.data.InspectionLine;
+import io.hymods.lib.data.InspectionOptions;
+import io.hymods.lib.data.InspectionResult;
+import io.hymods.lib.data.RaycastResult;
+import io.hymods.lib.utils.InspectionUtils;
+import io.hymods.lib.utils.StatUtils;
+
+/**
+ * Memoizing front-end for {@link InspectionUtils#inspectRaycastResult}.
+ *
+ * Block results only depend on the block type and the options, so they are
+ * cached server-wide keyed by (block type id, options). Entity results are
+ * cached per inspector (one per player) for the last inspected entity; as long
+ * as the crosshair stays on the same entity only its health is re-read (through
+ * {@link StatUtils}, without resolving stat indices again), and the
+ * cached result is returned unchanged when the health did not change.
+ *
+ * Cached results are discarded whenever an addon is registered, since addons
+ * contribute lines to every result. Addons whose lines change over time for the
+ * same target should call {@link #invalidateAll()} or
+ * {@link #invalidate()} when their data changes.
+ */
+public class CachedInspector {
+    private static final int MAX_BLOCK_ENTRIES = 4096;
+
+    private static final Map<BlockKey, InspectionResult> BLOCK_CACHE = new ConcurrentHashMap<>();
+    private static volatile long blockCacheAddonVersion = -1;
+
+    // Last inspected entity for this inspector
+    private Ref<EntityStore> lastEntityRef;
+    private String lastFallbackName;
+    private InspectionOptions lastEntityOptions;
+    private long lastEntityAddonVersion = -1;
+    private EntityHealth lastHealth;
+    private int healthLineIndex = -1;
+    private InspectionResult lastEntityResult;
+
+    /**
+     * Inspects a raycast result, reusing cached results when the target did not
+     * change. Must be called on the world thread.
+     *
+     * @param  store   The entity store
+     * @param  result  The raycast result
+     * @param  options The inspection options (can be null for defaults)
+     *
+     * @return         The inspection result
+     */
+    public InspectionResult inspect(Store<EntityStore> store, RaycastResult result, @NullableDecl InspectionOptions options) {
+        if (result == null || result.isMiss()) {
+            return InspectionResult.none();
+        }
+
+        InspectionOptions effectiveOptions = options != null ? options : InspectionOptions.defaults();
+
+        if (result.isBlockHit()) {
+            return inspectBlock(result.blockType(), effectiveOptions);
+        }
+
+        if (result.isEntityHit()) {
+            return inspectEntity(store, result.entityRef(), result.entityName(), effectiveOptions);
+        }
+
+        return InspectionResult.none();
+    }
+
+    /**
+     * Inspects a block, using the shared block cache
+     *
+     * @param  blockType The block type
+     * @param  options   The inspection options
+     *
+     * @return           The inspection result
+     */
+    public static InspectionResult inspectBlock(@NullableDecl BlockType blockType, InspectionOptions options) {
+        if (blockType == null || blockType.getId() == null) {
+            return InspectionResult.none();
+        }
+
+        long addonVersion = InspectionAddonRegistry.getVersion();
+        if (addonVersion != blockCacheAddonVersion) {
+            BLOCK_CACHE.clear();
+            blockCacheAddonVersion = addonVersion;
+        }
+
+        BlockKey key = new BlockKey(blockType.getId(), options);
+        InspectionResult cached = BLOCK_CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        InspectionResult inspected = InspectionUtils.inspectBlock(blockType, InspectionUtils.clampMaxNameLength(options), options);
+        if (BLOCK_CACHE.size() >= MAX_BLOCK_ENTRIES) {
+            // Block ids are finite, so this only happens with many option combinations
+            BLOCK_CACHE.clear();
+        }
+        BLOCK_CACHE.put(key, inspected);
+        return inspected;
+    }
+
+    private InspectionResult inspectEntity(Store<EntityStore> store, @NullableDecl Ref<EntityStore> entityRef, @NullableDecl String fallbackName, InspectionOptions options) {
+        if (entityRef == null || !entityRef.isValid()) {
+            invalidate();
+            return InspectionResult.none();
+        }
+
+        long addonVersion = InspectionAddonRegistry.getVersion();
+        boolean sameTarget = entityRef.equals(this.lastEntityRef)
+            && options.equals(this.lastEntityOptions)
+            && addonVersion == this.lastEntityAddonVersion
+            && (fallbackName == null ? this.lastFallbackName == null : fallbackName.equals(this.lastFallbackName));
+
+        if (!sameTarget) {
+            InspectionResult inspected = InspectionUtils.inspectEntity(store, entityRef, fallbackName, InspectionUtils.clampMaxNameLength(options), options);
+
+            this.lastEntityRef = entityRef;
+            this.lastFallbackName = fallbackName;
+            this.lastEntityOptions = options;
+            this.lastEntityAddonVersion = addonVersion;
+            this.lastEntityResult = inspected;
+            this.healthLineIndex = options.showEntityHealth() ? indexOfHealthLine(inspected.lines()) : -1;
+            this.lastHealth = this.healthLineIndex >= 0 ? StatUtils.getHealth(entityRef, store) : null;
+            return inspected;
+        }
+
+        if (this.healthLineIndex < 0) {
+            return this.lastEntityResult;
+        }
+
+        // Same target: only the health line is dynamic
+        EntityHealth health = StatUtils.getHealth(entityRef, store);
+        if (health == null ? this.lastHealth == null : health.equals(this.lastHealth)) {
+            return this.lastEntityResult;
+        }
+
+        List<InspectionLine> lines = new ArrayList<>(this.lastEntityResult.lines());
+        lines.set(this.healthLineIndex, InspectionUtils.healthLine(health));
+
+        InspectionResult previous = this.lastEntityResult;
+        this.lastEntityResult = new InspectionResult(previous.targetType(), previous.displayName(), previous.targetId(), previous.showIcon(), List.copyOf(lines));
+        this.lastHealth = health;
+        return this.lastEntityResult;
+    }
+
+    /**
+     * Discards this inspector's cached entity result
+     */
+    public void invalidate() {
+        this.lastEntityRef = null;
+        this.lastFallbackName = null;
+        this.lastEntityOptions = null;
+        this.lastHealth = null;
+        this.healthLineIndex = -1;
+        this.lastEntityResult = null;
+    }
+
+    /**
+     * Discards the shared block cache
+     */
+    public static void invalidateAll() {
+        BLOCK_CACHE.clear();
+    }
+
+    private static int indexOfHealthLine(List<InspectionLine> lines) {
+        for (int i = 0; i < lines.size(); i++) {
+            if (InspectionUtils.HEALTH_LABEL.equals(lines.get(i).label())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private record BlockKey(String blockId, InspectionOptions options) {
+    }
+}
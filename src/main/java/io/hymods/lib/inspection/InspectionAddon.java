@@ -8,6 +8,7 @@ import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import io.hymods.lib.data.InspectionLine;
+import io.hymods.lib.data.InspectionTargetType;
 
 /**
  * Optional extension point for adding custom lines to inspection results.
@@ -19,6 +20,22 @@ public interface InspectionAddon {
 
     String id();
 
+    /**
+     * Addons run in ascending priority order; addons with the same priority run
+     * in registration order. Read once at registration.
+     */
+    default int priority() {
+        return 0;
+    }
+
+    /**
+     * Whether this addon contributes lines for the given target type. Read once
+     * at registration, so block inspections skip entity-only addons entirely.
+     */
+    default boolean supports(InspectionTargetType targetType) {
+        return targetType == InspectionTargetType.BLOCK || targetType == InspectionTargetType.ENTITY;
+    }
+
     default void augmentBlock(BlockType blockType, List<InspectionLine> lines) {
         // optional
     }
@@ -1,10 +1,57 @@
 package io.hymods.lib.inspection;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import io.hymods.lib.data.InspectionAddonStatus;
+import io.hymods.lib.data.InspectionLine;
+import io.hymods.lib.data.InspectionTargetType;
+
+/**
+ * Registry of {@link InspectionAddon}s.
+ *
+ * Registration is rare and inspection happens every tick for every player, so
+ * the registry publishes an immutable snapshot on every change and the getters
+ * return it without copying. Addons are ordered by
+ * {@link InspectionAddon#priority()} and split per target type.
+ *
+ * Addons are invoked through {@link #augmentBlock(BlockType, List)} and
+ * {@link #augmentEntity(Store, Ref, List)}, which time every call and isolate
+ * faults: lines added by a throwing addon are discarded, and an addon that
+ * throws or exceeds the time budget too many times in a row is disabled until
+ * {@link #enable(String)} is called. {@link AsyncInspectionAddon}s go through
+ * the same checks: the call starting the work is timed against the budget, and
+ * a future that completes exceptionally counts as a failure.
+ */
 public final class InspectionAddonRegistry {
-    private static final CopyOnWriteArrayList<InspectionAddon> ADDONS = new CopyOnWriteArrayList<>();
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    public static final long DEFAULT_BUDGET_NANOS = 2_000_000L;
+    public static final int DEFAULT_MAX_CONSECUTIVE_FAILURES = 3;
+    public static final int DEFAULT_MAX_CONSECUTIVE_OVER_BUDGET = 10;
+
+    private static final List<InspectionAddon> REGISTERED = new ArrayList<>();
+    private static final Map<InspectionAddon, AddonStats> STATS = new HashMap<>();
+    private static volatile Snapshot snapshot = new Snapshot(List.of(), List.of(), List.of(), List.of(), List.of(), 0);
+
+    private static volatile long budgetNanos = DEFAULT_BUDGET_NANOS;
+    private static volatile int maxConsecutiveFailures = DEFAULT_MAX_CONSECUTIVE_FAILURES;
+    private static volatile int maxConsecutiveOverBudget = DEFAULT_MAX_CONSECUTIVE_OVER_BUDGET;
 
     private InspectionAddonRegistry() {
         // registry
@@ -14,10 +61,332 @@ public final class InspectionAddonRegistry {
         if (addon == null) {
             return;
         }
-        ADDONS.addIfAbsent(addon);
+        synchronized (REGISTERED) {
+            if (REGISTERED.contains(addon)) {
+                return;
+            }
+            REGISTERED.add(addon);
+            STATS.put(addon, new AddonStats(addon.id()));
+            publish();
+        }
+    }
+
+    public static boolean unregister(InspectionAddon addon) {
+        if (addon == null) {
+            return false;
+        }
+        synchronized (REGISTERED) {
+            if (!REGISTERED.remove(addon)) {
+                return false;
+            }
+            STATS.remove(addon);
+            publish();
+            return true;
+        }
+    }
+
+    public static boolean unregister(String addonId) {
+        synchronized (REGISTERED) {
+            if (!REGISTERED.removeIf(addon -> addon.id().equals(addonId))) {
+                return false;
+            }
+            STATS.keySet().removeIf(addon -> addon.id().equals(addonId));
+            publish();
+            return true;
+        }
     }
 
+    /**
+     * @return all enabled addons in priority order (immutable, not a copy)
+     */
     public static List<InspectionAddon> getAddons() {
-        return List.copyOf(ADDONS);
+        return snapshot.all();
+    }
+
+    /**
+     * @return enabled addons supporting the given target type in priority order
+     *         (immutable, not a copy)
+     */
+    public static List<InspectionAddon> getAddons(InspectionTargetType targetType) {
+        Snapshot current = snapshot;
+        return switch (targetType) {
+            case BLOCK -> current.blockAddons();
+            case ENTITY -> current.entityAddons();
+            case NONE -> List.of();
+        };
+    }
+
+    /**
+     * Incremented whenever the set of enabled addons changes, so cached
+     * inspection results can be discarded.
+     */
+    public static long getVersion() {
+        return snapshot.version();
+    }
+
+    /**
+     * Runs every enabled block addon with timing and fault isolation.
+     */
+    public static void augmentBlock(BlockType blockType, List<InspectionLine> lines) {
+        Snapshot current = snapshot;
+        List<InspectionAddon> addons = current.blockAddons();
+        for (int i = 0; i < addons.size(); i++) {
+            InspectionAddon addon = addons.get(i);
+            AddonStats stats = current.blockStats().get(i);
+            if (stats.isDisabled()) {
+                continue;
+            }
+
+            int mark = lines.size();
+            long start = System.nanoTime();
+            try {
+                addon.augmentBlock(blockType, lines);
+                afterSuccess(addon, stats, System.nanoTime() - start);
+            } catch (RuntimeException | LinkageError e) {
+                discardLines(lines, mark);
+                afterFailure(addon, stats, System.nanoTime() - start, e);
+            }
+        }
+    }
+
+    /**
+     * Runs every enabled entity addon with timing and fault isolation.
+     */
+    public static void augmentEntity(Store<EntityStore> store, Ref<EntityStore> entityRef, List<InspectionLine> lines) {
+        Snapshot current = snapshot;
+        List<InspectionAddon> addons = current.entityAddons();
+        for (int i = 0; i < addons.size(); i++) {
+            InspectionAddon addon = addons.get(i);
+            AddonStats stats = current.entityStats().get(i);
+            if (stats.isDisabled()) {
+                continue;
+            }
+
+            int mark = lines.size();
+            long start = System.nanoTime();
+            try {
+                addon.augmentEntity(store, entityRef, lines);
+                afterSuccess(addon, stats, System.nanoTime() - start);
+            } catch (RuntimeException | LinkageError e) {
+                discardLines(lines, mark);
+                afterFailure(addon, stats, System.nanoTime() - start, e);
+            }
+        }
+    }
+
+    /**
+     * Starts an async addon with timing and fault isolation. The stats are
+     * recorded once the future completes; cancelled futures are not counted.
+     *
+     * @param  addon    The addon
+     * @param  dispatch Starts the addon's work
+     *
+     * @return          The addon's future, or null if the addon is disabled,
+     *                  threw, or returned no future
+     */
+    static @NullableDecl CompletableFuture<List<InspectionLine>> startAsync(InspectionAddon addon,
+            Supplier<CompletableFuture<List<InspectionLine>>> dispatch) {
+        AddonStats stats;
+        synchronized (REGISTERED) {
+            stats = STATS.get(addon);
+        }
+        if (stats == null || stats.isDisabled()) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<List<InspectionLine>> future;
+        try {
+            future = dispatch.get();
+        } catch (RuntimeException | LinkageError e) {
+            afterFailure(addon, stats, System.nanoTime() - start, e);
+            return null;
+        }
+        // Only the dispatch runs on the caller's thread, so only it counts against the budget
+        long dispatchNanos = System.nanoTime() - start;
+        if (future == null) {
+            afterSuccess(addon, stats, dispatchNanos);
+            return null;
+        }
+
+        future.whenComplete((_, error) -> {
+            if (error == null) {
+                afterSuccess(addon, stats, dispatchNanos);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof CancellationException)) {
+                afterFailure(addon, stats, dispatchNanos, cause);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * @return the status of an addon, or null if no addon with this id is
+     *         registered
+     */
+    public static @NullableDecl InspectionAddonStatus getStatus(String addonId) {
+        AddonStats stats = findStats(addonId);
+        return stats != null ? stats.toStatus() : null;
+    }
+
+    /**
+     * @return the status of every registered addon, including disabled ones
+     */
+    public static List<InspectionAddonStatus> getStatuses() {
+        synchronized (REGISTERED) {
+            List<InspectionAddonStatus> statuses = new ArrayList<>(REGISTERED.size());
+            for (InspectionAddon addon : REGISTERED) {
+                statuses.add(STATS.get(addon).toStatus());
+            }
+            return statuses;
+        }
+    }
+
+    /**
+     * @return the raw stats of an addon, or null if not registered
+     */
+    public static @NullableDecl AddonStats getStats(String addonId) {
+        return findStats(addonId);
+    }
+
+    /**
+     * Re-enables an addon that was disabled automatically or manually.
+     */
+    public static boolean enable(String addonId) {
+        synchronized (REGISTERED) {
+            AddonStats stats = findStats(addonId);
+            if (stats == null || !stats.isDisabled()) {
+                return false;
+            }
+            stats.enable();
+            publish();
+            return true;
+        }
+    }
+
+    /**
+     * Disables an addon without unregistering it.
+     */
+    public static boolean disable(String addonId, String reason) {
+        synchronized (REGISTERED) {
+            AddonStats stats = findStats(addonId);
+            if (stats == null || stats.isDisabled()) {
+                return false;
+            }
+            stats.disable(reason);
+            publish();
+            return true;
+        }
+    }
+
+    /**
+     * Resets the counters of every addon.
+     */
+    public static void resetStats() {
+        synchronized (REGISTERED) {
+            STATS.values().forEach(AddonStats::reset);
+        }
+    }
+
+    /**
+     * Sets the time an addon call may take before it counts as over budget, 0
+     * to disable the budget.
+     */
+    public static void setBudgetNanos(long nanos) {
+        budgetNanos = Math.max(0, nanos);
+    }
+
+    /**
+     * Sets how many consecutive failures or over-budget calls disable an addon.
+     */
+    public static void setDisableThresholds(int consecutiveFailures, int consecutiveOverBudget) {
+        maxConsecutiveFailures = Math.max(1, consecutiveFailures);
+        maxConsecutiveOverBudget = Math.max(1, consecutiveOverBudget);
+    }
+
+    private static void afterSuccess(InspectionAddon addon, AddonStats stats, long elapsedNanos) {
+        int overBudget = stats.recordSuccess(elapsedNanos, budgetNanos);
+        if (overBudget >= maxConsecutiveOverBudget) {
+            autoDisable(addon, stats, "Exceeded the " + (budgetNanos / 1000L) + "us budget " + overBudget + " times in a row");
+        }
+    }
+
+    private static void afterFailure(InspectionAddon addon, AddonStats stats, long elapsedNanos, Throwable error) {
+        int failures = stats.recordFailure(elapsedNanos);
+        LOGGER.atWarning().log("Inspection addon '" + addon.id() + "' failed: " + error);
+        if (failures >= maxConsecutiveFailures) {
+            autoDisable(addon, stats, "Failed " + failures + " times in a row: " + error);
+        }
+    }
+
+    private static void autoDisable(InspectionAddon addon, AddonStats stats, String reason) {
+        synchronized (REGISTERED) {
+            if (stats.isDisabled() || !REGISTERED.contains(addon)) {
+                return;
+            }
+            stats.disable(reason);
+            publish();
+        }
+        LOGGER.atWarning().log("Disabled inspection addon '" + addon.id() + "': " + reason);
+    }
+
+    private static void discardLines(List<InspectionLine> lines, int mark) {
+        if (lines.size() > mark) {
+            lines.subList(mark, lines.size()).clear();
+        }
+    }
+
+    private static @NullableDecl AddonStats findStats(String addonId) {
+        synchronized (REGISTERED) {
+            for (InspectionAddon addon : REGISTERED) {
+                if (addon.id().equals(addonId)) {
+                    return STATS.get(addon);
+                }
+            }
+            return null;
+        }
+    }
+
+    private static void publish() {
+        // List.sort is stable, so equal priorities keep registration order
+        List<InspectionAddon> sorted = new ArrayList<>(REGISTERED);
+        sorted.removeIf(addon -> STATS.get(addon).isDisabled());
+        sorted.sort(Comparator.comparingInt(InspectionAddon::priority));
+
+        List<InspectionAddon> blockAddons = new ArrayList<>();
+        List<AddonStats> blockStats = new ArrayList<>();
+        List<InspectionAddon> entityAddons = new ArrayList<>();
+        List<AddonStats> entityStats = new ArrayList<>();
+        for (InspectionAddon addon : sorted) {
+            if (addon.supports(InspectionTargetType.BLOCK)) {
+                blockAddons.add(addon);
+                blockStats.add(STATS.get(addon));
+            }
+            if (addon.supports(InspectionTargetType.ENTITY)) {
+                entityAddons.add(addon);
+                entityStats.add(STATS.get(addon));
+            }
+        }
+
+        snapshot = new Snapshot(
+            List.copyOf(sorted),
+            List.copyOf(blockAddons),
+            List.copyOf(blockStats),
+            List.copyOf(entityAddons),
+            List.copyOf(entityStats),
+            snapshot.version() + 1
+        );
+    }
+
+    private record Snapshot(
+        List<InspectionAddon> all,
+        List<InspectionAddon> blockAddons,
+        List<AddonStats> blockStats,
+        List<InspectionAddon> entityAddons,
+        List<AddonStats> entityStats,
+        long version
+    ) {
     }
 }
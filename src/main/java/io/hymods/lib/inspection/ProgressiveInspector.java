@@ -0,0 +1,205 @@
+package io.hymods.lib.inspection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import io.hymods.lib.data.InspectionLine;
+import io.hymods.lib.data.InspectionOptions;
+import io.hymods.lib.data.InspectionResult;
+import io.hymods.lib.data.InspectionTargetType;
+import io.hymods.lib.data.RaycastResult;
+
+/**
+ * Per-player inspector that combines immediate lines with lines from
+ * {@link AsyncInspectionAddon}s.
+ *
+ * {@link #inspect(Store, RaycastResult, InspectionOptions)} returns the
+ * immediate result right away (served by a {@link CachedInspector}) plus any
+ * async lines that already completed for the current target. When a player
+ * starts looking at a new target, the async addons are started; each time one
+ * of them completes, an updated result is delivered to the listener through the
+ * delivery executor. Pending work is cancelled as soon as the player looks
+ * away.
+ *
+ * Usage:
+ * <pre>
+ * ProgressiveInspector inspector = new ProgressiveInspector(world, result -&gt; hud.render(result));
+ *
+ * // From your world tick
+ * hud.render(inspector.inspect(store, raycast, options));
+ * </pre>
+ *
+ * The inspector must be used from a single thread, and the delivery executor
+ * must run tasks on that same thread (typically the player's world).
+ */
+public class ProgressiveInspector {
+    private final CachedInspector inspector = new CachedInspector();
+    private final Executor deliveryExecutor;
+    private final Consumer<InspectionResult> listener;
+
+    private Object currentTarget = null;
+    private long generation = 0;
+    private final List<CompletableFuture<List<InspectionLine>>> pending = new ArrayList<>();
+    private final List<List<InspectionLine>> asyncLines = new ArrayList<>();
+
+    private InspectionResult lastImmediate = InspectionResult.none();
+    private InspectionResult lastMerged = null;
+
+    /**
+     * Creates an inspector
+     *
+     * @param deliveryExecutor Executor running updates on the inspector's thread
+     * @param listener         Receives updated results as async lines complete
+     */
+    public ProgressiveInspector(Executor deliveryExecutor, Consumer<InspectionResult> listener) {
+        this.deliveryExecutor = deliveryExecutor;
+        this.listener = listener;
+    }
+
+    /**
+     * Inspects a raycast result, starting async addons if the target changed
+     *
+     * @param  store   The entity store
+     * @param  result  The raycast result
+     * @param  options The inspection options (can be null for defaults)
+     *
+     * @return         The immediate result merged with completed async lines
+     */
+    public InspectionResult inspect(Store<EntityStore> store, RaycastResult result, @NullableDecl InspectionOptions options) {
+        InspectionResult immediate = this.inspector.inspect(store, result, options);
+
+        Object target = immediate.hasTarget() ? targetOf(result) : null;
+        if (!Objects.equals(target, this.currentTarget)) {
+            cancel();
+            this.currentTarget = target;
+            if (target != null) {
+                start(store, result, immediate.targetType());
+            }
+        }
+
+        if (immediate != this.lastImmediate) {
+            this.lastImmediate = immediate;
+            this.lastMerged = null;
+        }
+        return merged();
+    }
+
+    /**
+     * Cancels pending async work and forgets the current target
+     */
+    public void cancel() {
+        this.generation++;
+        for (CompletableFuture<List<InspectionLine>> future : this.pending) {
+            future.cancel(true);
+        }
+        this.pending.clear();
+        this.asyncLines.clear();
+        this.currentTarget = null;
+        this.lastMerged = null;
+    }
+
+    /**
+     * @return the number of async addons still running for the current target
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (CompletableFuture<List<InspectionLine>> future : this.pending) {
+            if (!future.isDone()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void start(Store<EntityStore> store, RaycastResult result, InspectionTargetType targetType) {
+        final long startedGeneration = this.generation;
+
+        for (InspectionAddon addon : InspectionAddonRegistry.getAddons(targetType)) {
+            if (!(addon instanceof AsyncInspectionAddon asyncAddon)) {
+                continue;
+            }
+
+            // The registry records timing and failures, and disables faulty addons
+            CompletableFuture<List<InspectionLine>> future = InspectionAddonRegistry.startAsync(addon, () ->
+                targetType == InspectionTargetType.BLOCK
+                    ? asyncAddon.augmentBlockAsync(result.blockType(), result.blockPosition())
+                    : asyncAddon.augmentEntityAsync(store, result.entityRef()));
+            if (future == null) {
+                continue;
+            }
+
+            final int slot = this.pending.size();
+            this.pending.add(future);
+            this.asyncLines.add(null);
+
+            future.whenComplete((lines, error) -> {
+                if (error != null) {
+                    return;
+                }
+                if (lines != null && !lines.isEmpty()) {
+                    this.deliveryExecutor.execute(() -> deliver(startedGeneration, slot, lines));
+                }
+            });
+        }
+    }
+
+    private void deliver(long deliveredGeneration, int slot, List<InspectionLine> lines) {
+        if (deliveredGeneration != this.generation) {
+            // The player looked away in the meantime
+            return;
+        }
+
+        this.asyncLines.set(slot, List.copyOf(lines));
+        this.lastMerged = null;
+        this.listener.accept(merged());
+    }
+
+    private InspectionResult merged() {
+        if (this.lastMerged != null) {
+            return this.lastMerged;
+        }
+
+        InspectionResult immediate = this.lastImmediate;
+        List<InspectionLine> lines = null;
+        for (List<InspectionLine> extra : this.asyncLines) {
+            if (extra == null) {
+                continue;
+            }
+            if (lines == null) {
+                lines = new ArrayList<>(immediate.lines());
+            }
+            lines.addAll(extra);
+        }
+
+        this.lastMerged = lines == null
+            ? immediate
+            : new InspectionResult(immediate.targetType(), immediate.displayName(), immediate.targetId(), immediate.showIcon(), List.copyOf(lines));
+        return this.lastMerged;
+    }
+
+    private static @NullableDecl Object targetOf(RaycastResult result) {
+        if (result.isBlockHit() && result.blockType() != null) {
+            Vector3d pos = result.blockPosition();
+            return pos != null
+                ? new BlockTarget(result.blockType().getId(), pos.getX(), pos.getY(), pos.getZ())
+                : new BlockTarget(result.blockType().getId(), 0, 0, 0);
+        }
+        if (result.isEntityHit()) {
+            return result.entityRef();
+        }
+        return null;
+    }
+
+    private record BlockTarget(String blockId, double x, double y, double z) {
+    }
+}
@@ -0,0 +1,319 @@
+package io.hymods.lib.npc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hypixel.hytale.server.npc.entities.NPCEntity;
+
+import io.hymods.lib.data.NPCLodTier;
+import io.hymods.lib.utils.NPCUtils;
+
+/**
+ * Level-of-detail scheduler that throttles NPC updates by distance to the
+ * nearest player.
+ *
+ * Each {@link #tick(World)} classifies every NPC into a {@link NPCLodTier} and
+ * calls the registered {@link Updater} only when the NPC's tier interval is due.
+ * Updates are staggered so NPCs of the same tier do not all run on the same
+ * tick. When an NPC changes tier, the tier's state (if any) is applied with
+ * {@link NPCUtils#setNPCState(Ref, Store, String, String)}, which can be used to
+ * park far away NPCs in a cheap idle state.
+ *
+ * NPCs in a frozen tier ({@link NPCLodTier#isFrozen()}) are frozen with
+ * {@link NPCUtils#setNPCFrozen(Ref, Store, boolean)}, so the engine stops
+ * ticking their role, sensors and movement until they move back into a nearer
+ * tier. The engine has no way to tick a role at a lower rate, so tiers with an
+ * interval above 1 only throttle the {@link Updater}; use a frozen tier or an
+ * idle state to cut the engine's cost for distant NPCs.
+ *
+ * Moving to a farther tier requires the NPC to be {@code hysteresis} blocks past
+ * the boundary, so NPCs near a boundary don't flip between tiers every tick.
+ *
+ * Usage:
+ * <pre>
+ * NPCLodScheduler lod = new NPCLodScheduler(List.of(
+ *     new NPCLodTier("near", 32, 1),
+ *     new NPCLodTier("mid", 96, 4),
+ *     new NPCLodTier("far", Double.MAX_VALUE, 0, "Idle")
+ * ), 4.0, (ref, store, tier) -&gt; myAi.update(ref, store));
+ *
+ * // From your world tick
+ * lod.tick(world);
+ * </pre>
+ *
+ * A scheduler is bound to a single world and must only be used from its thread.
+ */
+public class NPCLodScheduler {
+    private static final int PRUNE_INTERVAL_TICKS = 64;
+
+    private final NPCLodTier[] tiers;
+    private final double hysteresis;
+    private final Updater updater;
+
+    private final Map<Ref<EntityStore>, LodEntry> entries = new HashMap<>();
+    private final long[] tierUpdates;
+    private final long[] tierTransitions;
+    private final int[] tierCounts;
+
+    private long tickCount = 0;
+    private int nextPhase = 0;
+
+    // Reused per tick
+    private double[] playerPositions = new double[3 * 16];
+    private int playerCount;
+    private final List<Ref<EntityStore>> due = new ArrayList<>();
+    private final List<Ref<EntityStore>> transitioned = new ArrayList<>();
+    private final List<Ref<EntityStore>> freezeMismatched = new ArrayList<>();
+
+    /**
+     * Creates a scheduler
+     *
+     * @param tiers      The tiers, in any order; NPCs farther than every tier use
+     *                   the farthest one
+     * @param hysteresis Extra distance required before moving to a farther tier
+     * @param updater    Called for NPCs whose update is due (can be null)
+     */
+    public NPCLodScheduler(List<NPCLodTier> tiers, double hysteresis, Updater updater) {
+        if (tiers == null || tiers.isEmpty()) {
+            throw new IllegalArgumentException("At least one LOD tier is required");
+        }
+
+        this.tiers = tiers.toArray(new NPCLodTier[0]);
+        Arrays.sort(this.tiers, Comparator.comparingDouble(NPCLodTier::maxDistance));
+        this.hysteresis = Math.max(0, hysteresis);
+        this.updater = updater;
+        this.tierUpdates = new long[this.tiers.length];
+        this.tierTransitions = new long[this.tiers.length];
+        this.tierCounts = new int[this.tiers.length];
+    }
+
+    /**
+     * Classifies all NPCs and runs due updates. Call this once per tick from the
+     * world thread.
+     *
+     * @param world The world to schedule NPCs in
+     */
+    public void tick(World world) {
+        final Store<EntityStore> store = world.getEntityStore().getStore();
+        final long tick = this.tickCount++;
+
+        collectPlayerPositions(store);
+        Arrays.fill(this.tierCounts, 0);
+
+        BiConsumer<ArchetypeChunk<EntityStore>, CommandBuffer<EntityStore>> classifier = (archetypeChunk, _) -> {
+            for (int index = 0; index < archetypeChunk.size(); index++) {
+                TransformComponent transform = archetypeChunk.getComponent(index, TransformComponent.getComponentType());
+                if (transform == null) {
+                    continue;
+                }
+
+                Ref<EntityStore> ref = archetypeChunk.getReferenceTo(index);
+                LodEntry entry = this.entries.get(ref);
+                if (entry == null) {
+                    entry = new LodEntry(this.nextPhase++);
+                    this.entries.put(ref, entry);
+                }
+                entry.lastSeenTick = tick;
+
+                int tier = classify(nearestPlayerDistanceSquared(transform.getPosition()), entry.tier);
+                if (tier != entry.tier) {
+                    entry.tier = tier;
+                    this.tierTransitions[tier]++;
+                    if (this.tiers[tier].state() != null) {
+                        this.transitioned.add(ref);
+                    }
+                }
+                // Checked every tick, so a freeze that failed is retried
+                if (this.tiers[tier].isFrozen() != entry.frozen) {
+                    this.freezeMismatched.add(ref);
+                }
+                this.tierCounts[tier]++;
+
+                int interval = this.tiers[tier].updateInterval();
+                if (interval > 0 && (tick + entry.phase) % interval == 0) {
+                    this.due.add(ref);
+                    this.tierUpdates[tier]++;
+                }
+            }
+        };
+
+        store.forEachChunk(NPCEntity.getComponentType(), classifier);
+
+        // Apply state changes and updates outside of the chunk iteration
+        for (Ref<EntityStore> ref : this.freezeMismatched) {
+            LodEntry entry = this.entries.get(ref);
+            boolean frozen = this.tiers[entry.tier].isFrozen();
+            if (NPCUtils.setNPCFrozen(ref, store, frozen)) {
+                entry.frozen = frozen;
+            }
+        }
+        for (Ref<EntityStore> ref : this.transitioned) {
+            NPCUtils.setNPCState(ref, store, this.tiers[this.entries.get(ref).tier].state(), null);
+        }
+        if (this.updater != null) {
+            for (Ref<EntityStore> ref : this.due) {
+                this.updater.update(ref, store, this.tiers[this.entries.get(ref).tier]);
+            }
+        }
+        this.transitioned.clear();
+        this.freezeMismatched.clear();
+        this.due.clear();
+
+        if (tick % PRUNE_INTERVAL_TICKS == 0) {
+            this.entries.values().removeIf(entry -> entry.lastSeenTick != tick);
+        }
+    }
+
+    /**
+     * Unfreezes every NPC this scheduler froze and forgets all NPCs, e.g. before
+     * the scheduler is discarded. Call this from the world thread.
+     *
+     * @param world The world the scheduler belongs to
+     */
+    public void reset(World world) {
+        final Store<EntityStore> store = world.getEntityStore().getStore();
+        for (Map.Entry<Ref<EntityStore>, LodEntry> entry : this.entries.entrySet()) {
+            if (entry.getValue().frozen) {
+                NPCUtils.setNPCFrozen(entry.getKey(), store, false);
+            }
+        }
+        this.entries.clear();
+    }
+
+    /**
+     * Gets the current tier of an NPC
+     *
+     * @param  ref The NPC reference
+     *
+     * @return     The tier, or null if the NPC has not been classified yet
+     */
+    public NPCLodTier getTier(Ref<EntityStore> ref) {
+        LodEntry entry = this.entries.get(ref);
+        return entry != null && entry.tier >= 0 ? this.tiers[entry.tier] : null;
+    }
+
+    /**
+     * Gets per-tier metrics
+     *
+     * @return One entry per tier, ordered from nearest to farthest
+     */
+    public List<TierStats> getTierStats() {
+        List<TierStats> stats = new ArrayList<>(this.tiers.length);
+        for (int i = 0; i < this.tiers.length; i++) {
+            stats.add(new TierStats(this.tiers[i], this.tierCounts[i], this.tierUpdates[i], this.tierTransitions[i]));
+        }
+        return stats;
+    }
+
+    /**
+     * Resets the update and transition counters
+     */
+    public void resetStats() {
+        Arrays.fill(this.tierUpdates, 0);
+        Arrays.fill(this.tierTransitions, 0);
+    }
+
+    private int classify(double distSquared, int previousTier) {
+        int tier = this.tiers.length - 1;
+        for (int i = 0; i < this.tiers.length; i++) {
+            double max = this.tiers[i].maxDistance();
+            if (distSquared <= max * max) {
+                tier = i;
+                break;
+            }
+        }
+
+        // Only move farther out once past the previous boundary plus hysteresis
+        if (previousTier >= 0 && tier > previousTier) {
+            double threshold = this.tiers[previousTier].maxDistance() + this.hysteresis;
+            if (distSquared <= threshold * threshold) {
+                return previousTier;
+            }
+        }
+        return tier;
+    }
+
+    private void collectPlayerPositions(Store<EntityStore> store) {
+        this.playerCount = 0;
+
+        BiConsumer<ArchetypeChunk<EntityStore>, CommandBuffer<EntityStore>> collector = (archetypeChunk, _) -> {
+            for (int index = 0; index < archetypeChunk.size(); index++) {
+                TransformComponent transform = archetypeChunk.getComponent(index, TransformComponent.getComponentType());
+                if (transform == null) {
+                    continue;
+                }
+
+                if ((this.playerCount + 1) * 3 > this.playerPositions.length) {
+                    this.playerPositions = Arrays.copyOf(this.playerPositions, this.playerPositions.length * 2);
+                }
+
+                Vector3d pos = transform.getPosition();
+                int offset = this.playerCount++ * 3;
+                this.playerPositions[offset] = pos.getX();
+                this.playerPositions[offset + 1] = pos.getY();
+                this.playerPositions[offset + 2] = pos.getZ();
+            }
+        };
+
+        store.forEachChunk(PlayerRef.getComponentType(), collector);
+    }
+
+    private double nearestPlayerDistanceSquared(Vector3d position) {
+        double nearest = Double.MAX_VALUE;
+        for (int i = 0; i < this.playerCount; i++) {
+            int offset = i * 3;
+            double dx = this.playerPositions[offset] - position.getX();
+            double dy = this.playerPositions[offset + 1] - position.getY();
+            double dz = this.playerPositions[offset + 2] - position.getZ();
+            double distSquared = dx * dx + dy * dy + dz * dz;
+            if (distSquared < nearest) {
+                nearest = distSquared;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Receives throttled NPC updates
+     */
+    @FunctionalInterface
+    public interface Updater {
+        void update(Ref<EntityStore> ref, Store<EntityStore> store, NPCLodTier tier);
+    }
+
+    /**
+     * Metrics for a single tier
+     *
+     * @param tier        The tier
+     * @param count       Number of NPCs in the tier as of the last tick
+     * @param updates     Number of updates run for NPCs in the tier
+     * @param transitions Number of NPCs that moved into the tier
+     */
+    public record TierStats(NPCLodTier tier, int count, long updates, long transitions) {
+    }
+
+    private static final class LodEntry {
+        private final int phase;
+        private int tier = -1;
+        private boolean frozen;
+        private long lastSeenTick;
+
+        private LodEntry(int phase) {
+            this.phase = phase;
+        }
+    }
+}
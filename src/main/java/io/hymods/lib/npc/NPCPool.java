@@ -0,0 +1,243 @@
+package io.hymods.lib.npc;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import io.hymods.lib.utils.EntityUtils;
+import io.hymods.lib.utils.NPCUtils;
+
+/**
+ * Recycles short-lived NPCs instead of removing and respawning them.
+ *
+ * {@link #release(Ref, Store)} parks an NPC: it is moved to the parking point,
+ * leashed there with {@link NPCUtils#setNPCLeashPoint(Ref, Store, Vector3d)}
+ * and optionally switched to an idle state. {@link #spawn(World, String, Vector3d, Vector3f)}
+ * reuses a parked NPC of the same role when available and only falls back to
+ * {@link NPCUtils#spawnNPC(World, String, Vector3d, Vector3f)} on a miss.
+ *
+ * Pools are capped per role; NPCs released into a full pool are removed. Parked
+ * NPCs idle for longer than the eviction timeout are removed by
+ * {@link #evictIdle(World)}.
+ *
+ * A pool is bound to a single world and must only be used from its thread.
+ */
+public class NPCPool {
+    public static final int DEFAULT_MAX_PER_ROLE = 32;
+    public static final long DEFAULT_IDLE_TIMEOUT_NANOS = 60_000_000_000L;
+
+    private final Vector3d parkingPoint;
+    private final String parkedState;
+    private final String activeState;
+    private final int defaultMaxPerRole;
+    private final long idleTimeoutNanos;
+
+    private final Map<String, Integer> maxPerRole = new HashMap<>();
+    private final Map<String, Deque<ParkedNPC>> pools = new HashMap<>();
+    private final Set<Ref<EntityStore>> parkedRefs = new HashSet<>();
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates a pool with default limits that does not change NPC states
+     *
+     * @param parkingPoint Where parked NPCs are kept, ideally out of sight
+     */
+    public NPCPool(Vector3d parkingPoint) {
+        this(parkingPoint, null, null, DEFAULT_MAX_PER_ROLE, DEFAULT_IDLE_TIMEOUT_NANOS);
+    }
+
+    /**
+     * Creates a pool
+     *
+     * @param parkingPoint      Where parked NPCs are kept, ideally out of sight
+     * @param parkedState       State set on parked NPCs (can be null)
+     * @param activeState       State set on reused NPCs (can be null)
+     * @param defaultMaxPerRole Maximum parked NPCs per role, unless overridden
+     * @param idleTimeoutNanos  How long an NPC may stay parked before eviction
+     */
+    public NPCPool(Vector3d parkingPoint, String parkedState, String activeState, int defaultMaxPerRole, long idleTimeoutNanos) {
+        this.parkingPoint = parkingPoint;
+        this.parkedState = parkedState;
+        this.activeState = activeState;
+        this.defaultMaxPerRole = Math.max(0, defaultMaxPerRole);
+        this.idleTimeoutNanos = idleTimeoutNanos;
+    }
+
+    /**
+     * Overrides the maximum number of parked NPCs for a role
+     *
+     * @param roleName The NPC role name
+     * @param max      Maximum parked NPCs, 0 disables pooling for the role
+     */
+    public void setMaxPoolSize(String roleName, int max) {
+        this.maxPerRole.put(roleName, Math.max(0, max));
+    }
+
+    /**
+     * Spawns an NPC, reusing a parked one of the same role if available
+     *
+     * @param  world    The world to spawn in
+     * @param  roleName The NPC role name
+     * @param  position The spawn position
+     * @param  rotation The spawn rotation
+     *
+     * @return          The NPC reference, or null if spawning failed
+     */
+    public Ref<EntityStore> spawn(World world, String roleName, Vector3d position, Vector3f rotation) {
+        final Store<EntityStore> store = world.getEntityStore().getStore();
+        Deque<ParkedNPC> pool = this.pools.get(roleName);
+
+        while (pool != null && !pool.isEmpty()) {
+            ParkedNPC parked = pool.pollFirst();
+            this.parkedRefs.remove(parked.ref);
+            if (!parked.ref.isValid()) {
+                continue;
+            }
+
+            // Each NPC gets its own copies, the caller may reuse the vector
+            EntityUtils.setEntityPosition(parked.ref, store, position.clone());
+            EntityUtils.setEntityRotation(parked.ref, store, rotation);
+            NPCUtils.setNPCLeashPoint(parked.ref, store, position.clone());
+            if (this.activeState != null) {
+                NPCUtils.setNPCState(parked.ref, store, this.activeState, null);
+            }
+            this.hits++;
+            return parked.ref;
+        }
+
+        this.misses++;
+        return NPCUtils.spawnNPC(world, roleName, position, rotation);
+    }
+
+    /**
+     * Returns an NPC to the pool, or removes it if the role's pool is full
+     *
+     * @param  ref   The NPC reference
+     * @param  store The entity store
+     *
+     * @return       true if the NPC was parked (or already was), false if it was
+     *               removed or is not an NPC
+     */
+    public boolean release(Ref<EntityStore> ref, Store<EntityStore> store) {
+        if (this.parkedRefs.contains(ref)) {
+            // Released twice, it must not be handed out twice
+            return true;
+        }
+
+        String roleName = NPCUtils.getNPCRoleName(ref, store);
+        if (roleName == null) {
+            return false;
+        }
+
+        Deque<ParkedNPC> pool = this.pools.computeIfAbsent(roleName, _ -> new ArrayDeque<>());
+        if (pool.size() >= this.maxPerRole.getOrDefault(roleName, this.defaultMaxPerRole)) {
+            NPCUtils.removeNPC(ref, store);
+            return false;
+        }
+
+        // Position and leash point must not share a vector, nor with other NPCs
+        EntityUtils.setEntityPosition(ref, store, this.parkingPoint.clone());
+        NPCUtils.setNPCLeashPoint(ref, store, this.parkingPoint.clone());
+        if (this.parkedState != null) {
+            NPCUtils.setNPCState(ref, store, this.parkedState, null);
+        }
+
+        pool.addFirst(new ParkedNPC(ref, System.nanoTime()));
+        this.parkedRefs.add(ref);
+        return true;
+    }
+
+    /**
+     * Removes NPCs that have been parked for longer than the idle timeout. Call
+     * this periodically from the world thread.
+     *
+     * @param  world The world the pool belongs to
+     *
+     * @return       The number of NPCs evicted
+     */
+    public int evictIdle(World world) {
+        final Store<EntityStore> store = world.getEntityStore().getStore();
+        final long cutoff = System.nanoTime() - this.idleTimeoutNanos;
+        int evicted = 0;
+
+        for (Deque<ParkedNPC> pool : this.pools.values()) {
+            // Oldest entries are at the tail
+            while (!pool.isEmpty() && pool.peekLast().parkedAtNanos <= cutoff) {
+                ParkedNPC parked = pool.pollLast();
+                this.parkedRefs.remove(parked.ref);
+                NPCUtils.removeNPC(parked.ref, store);
+                evicted++;
+            }
+        }
+
+        this.evictions += evicted;
+        return evicted;
+    }
+
+    /**
+     * Removes all parked NPCs
+     *
+     * @param world The world the pool belongs to
+     */
+    public void clear(World world) {
+        final Store<EntityStore> store = world.getEntityStore().getStore();
+        Iterator<Deque<ParkedNPC>> iterator = this.pools.values().iterator();
+        while (iterator.hasNext()) {
+            for (ParkedNPC parked : iterator.next()) {
+                NPCUtils.removeNPC(parked.ref, store);
+            }
+            iterator.remove();
+        }
+        this.parkedRefs.clear();
+    }
+
+    /**
+     * Gets the number of parked NPCs for a role
+     *
+     * @param  roleName The NPC role name
+     *
+     * @return          The number of parked NPCs
+     */
+    public int getParkedCount(String roleName) {
+        Deque<ParkedNPC> pool = this.pools.get(roleName);
+        return pool != null ? pool.size() : 0;
+    }
+
+    /**
+     * @return Number of spawns served from the pool
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return Number of spawns that needed a new NPC
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return Number of parked NPCs removed for being idle
+     */
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    private record ParkedNPC(Ref<EntityStore> ref, long parkedAtNanos) {
+    }
+}
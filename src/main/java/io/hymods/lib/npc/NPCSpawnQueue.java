@@ -0,0 +1,216 @@
+package io.hymods.lib.npc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hypixel.hytale.server.npc.NPCPlugin;
+
+import io.hymods.lib.data.NPCSpawnSpec;
+import io.hymods.lib.utils.NPCUtils;
+
+/**
+ * Spawns large batches of NPCs spread over several ticks.
+ *
+ * Roles are resolved once per batch through {@link NPCUtils#getRoleIndex(String)}
+ * and each {@link #tick(World)} spawns at most {@code maxPerTick} NPCs or until
+ * the time budget is spent, so a wave of hundreds of NPCs does not stall a
+ * single tick.
+ *
+ * Usage:
+ * <pre>
+ * NPCSpawnQueue spawner = new NPCSpawnQueue();
+ * List&lt;CompletableFuture&lt;Ref&lt;EntityStore&gt;&gt;&gt; refs = spawner.spawnBatch(world, specs);
+ *
+ * // From your world tick
+ * spawner.tick(world);
+ * </pre>
+ *
+ * Futures complete with the spawned reference, or with null if the role is
+ * unknown or spawning failed. Cancelling a future before its NPC is spawned
+ * skips it.
+ */
+public class NPCSpawnQueue {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    public static final int DEFAULT_MAX_PER_TICK = 16;
+    public static final long DEFAULT_BUDGET_NANOS = 2_000_000L;
+
+    private final int maxPerTick;
+    private final long budgetNanos;
+    private final Map<World, Queue<PendingSpawn>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong spawnedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * Creates a queue with the default per-tick limits
+     */
+    public NPCSpawnQueue() {
+        this(DEFAULT_MAX_PER_TICK, DEFAULT_BUDGET_NANOS);
+    }
+
+    /**
+     * Creates a queue with custom per-tick limits
+     *
+     * @param maxPerTick  Maximum number of NPCs spawned per tick (minimum 1)
+     * @param budgetNanos Time budget per tick in nanoseconds
+     */
+    public NPCSpawnQueue(int maxPerTick, long budgetNanos) {
+        this.maxPerTick = Math.max(1, maxPerTick);
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Queues a batch of NPCs for spawning. Can be called from any thread.
+     *
+     * @param  world The world to spawn in
+     * @param  specs The NPCs to spawn
+     *
+     * @return       One future per spec, in the same order
+     */
+    public List<CompletableFuture<Ref<EntityStore>>> spawnBatch(World world, NPCSpawnSpec[] specs) {
+        List<CompletableFuture<Ref<EntityStore>>> futures = new ArrayList<>(specs.length);
+        Queue<PendingSpawn> queue = this.pending.computeIfAbsent(world, _ -> new ConcurrentLinkedQueue<>());
+
+        // Resolve each distinct role once for the whole batch
+        Map<String, Integer> roleIndices = new HashMap<>();
+        for (NPCSpawnSpec spec : specs) {
+            CompletableFuture<Ref<EntityStore>> future = new CompletableFuture<>();
+            futures.add(future);
+
+            int roleIndex = spec != null ? roleIndices.computeIfAbsent(spec.roleName(), NPCUtils::getRoleIndex) : -1;
+            if (roleIndex < 0) {
+                this.failedCount.incrementAndGet();
+                future.complete(null);
+                continue;
+            }
+
+            queue.add(new PendingSpawn(spec, roleIndex, future));
+        }
+
+        return futures;
+    }
+
+    /**
+     * Spawns queued NPCs for a world within the per-tick limits. Must be called
+     * on the world thread.
+     *
+     * @param  world The world to spawn in
+     *
+     * @return       The number of NPCs spawned this tick
+     */
+    public int tick(World world) {
+        Queue<PendingSpawn> queue = this.pending.get(world);
+        if (queue == null || queue.isEmpty()) {
+            return 0;
+        }
+
+        final NPCPlugin npcPlugin = NPCPlugin.get();
+        if (npcPlugin == null) {
+            return 0;
+        }
+
+        final Store<EntityStore> store = world.getEntityStore().getStore();
+        final long deadline = System.nanoTime() + this.budgetNanos;
+        int spawned = 0;
+
+        while (spawned < this.maxPerTick) {
+            PendingSpawn next = queue.poll();
+            if (next == null) {
+                break;
+            }
+            if (next.future.isDone()) {
+                // Cancelled by the caller
+                continue;
+            }
+
+            Ref<EntityStore> ref = spawn(npcPlugin, store, next);
+            if (ref != null) {
+                this.spawnedCount.incrementAndGet();
+            } else {
+                this.failedCount.incrementAndGet();
+                NPCUtils.invalidateRoleIndex(next.spec.roleName());
+            }
+            next.future.complete(ref);
+            spawned++;
+
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        return spawned;
+    }
+
+    /**
+     * Gets the number of NPCs waiting to be spawned in a world
+     *
+     * @param  world The world
+     *
+     * @return       The number of queued spawns
+     */
+    public int getPendingCount(World world) {
+        Queue<PendingSpawn> queue = this.pending.get(world);
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * Cancels all queued spawns for a world, completing their futures with null
+     *
+     * @param world The world
+     */
+    public void cancelAll(World world) {
+        Queue<PendingSpawn> queue = this.pending.remove(world);
+        if (queue == null) {
+            return;
+        }
+
+        PendingSpawn next;
+        while ((next = queue.poll()) != null) {
+            next.future.complete(null);
+        }
+    }
+
+    /**
+     * @return Total number of NPCs spawned by this queue
+     */
+    public long getSpawnedCount() {
+        return this.spawnedCount.get();
+    }
+
+    /**
+     * @return Total number of spawns that failed (unknown role or spawn error)
+     */
+    public long getFailedCount() {
+        return this.failedCount.get();
+    }
+
+    private static Ref<EntityStore> spawn(NPCPlugin npcPlugin, Store<EntityStore> store, PendingSpawn next) {
+        NPCSpawnSpec spec = next.spec;
+        try {
+            if (spec.flockType() != null) {
+                var result = npcPlugin.spawnNPC(store, spec.roleName(), spec.flockType(), spec.position(), spec.rotation());
+                return result != null ? result.first() : null;
+            }
+            return NPCUtils.spawnCustomNPC(npcPlugin, store, next.roleIndex, spec.position(), spec.rotation(), spec.customizer());
+        } catch (RuntimeException e) {
+            LOGGER.atWarning().log("Failed to spawn NPC '" + spec.roleName() + "': " + e.getMessage());
+            return null;
+        }
+    }
+
+    private record PendingSpawn(NPCSpawnSpec spec, int roleIndex, CompletableFuture<Ref<EntityStore>> future) {
+    }
+}
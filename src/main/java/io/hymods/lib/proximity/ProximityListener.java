@@ -0,0 +1,22 @@
+package io.hymods.lib.proximity;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Receives enter/exit notifications for a {@link ProximityRegion}.
+ *
+ * Listeners are called on the world thread from
+ * {@link ProximityTracker#tick(com.hypixel.hytale.server.core.universe.world.World)},
+ * only for entities whose membership changed since the previous tick.
+ */
+public interface ProximityListener {
+
+    default void onEnter(ProximityRegion region, Ref<EntityStore> entityRef) {
+        // optional
+    }
+
+    default void onExit(ProximityRegion region, Ref<EntityStore> entityRef) {
+        // optional
+    }
+}
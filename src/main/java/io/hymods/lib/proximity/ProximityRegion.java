@@ -0,0 +1,137 @@
+package io.hymods.lib.proximity;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+
+/**
+ * A watched area of the world used by {@link ProximityTracker}
+ */
+public record ProximityRegion(
+    /**
+     * Unique identifier of the region (e.g., "mymod:spawn_zone").
+     */
+    String id,
+    /**
+     * The shape of the region.
+     */
+    Shape shape,
+    /**
+     * The center of the region (sphere only, null for boxes).
+     */
+    Vector3d center,
+    /**
+     * The radius of the region (sphere only, 0 for boxes).
+     */
+    double radius,
+    /**
+     * Minimum corner of the region's bounding box.
+     */
+    Vector3d min,
+    /**
+     * Maximum corner of the region's bounding box.
+     */
+    Vector3d max,
+    /**
+     * Which entities are tracked by the region.
+     */
+    Filter filter
+) {
+
+    /**
+     * Creates a spherical region tracking players only
+     *
+     * @param  id     The region identifier
+     * @param  center The center of the sphere
+     * @param  radius The radius of the sphere
+     *
+     * @return        The region
+     */
+    public static ProximityRegion sphere(String id, Vector3d center, double radius) {
+        return sphere(id, center, radius, Filter.PLAYERS);
+    }
+
+    /**
+     * Creates a spherical region
+     *
+     * @param  id     The region identifier
+     * @param  center The center of the sphere
+     * @param  radius The radius of the sphere
+     * @param  filter Which entities to track
+     *
+     * @return        The region
+     */
+    public static ProximityRegion sphere(String id, Vector3d center, double radius, Filter filter) {
+        Vector3d min = new Vector3d(center.getX() - radius, center.getY() - radius, center.getZ() - radius);
+        Vector3d max = new Vector3d(center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+        return new ProximityRegion(id, Shape.SPHERE, center, radius, min, max, filter);
+    }
+
+    /**
+     * Creates an axis-aligned box region tracking players only
+     *
+     * @param  id  The region identifier
+     * @param  min Minimum corner of the box
+     * @param  max Maximum corner of the box
+     *
+     * @return     The region
+     */
+    public static ProximityRegion box(String id, Vector3d min, Vector3d max) {
+        return box(id, min, max, Filter.PLAYERS);
+    }
+
+    /**
+     * Creates an axis-aligned box region
+     *
+     * @param  id     The region identifier
+     * @param  min    Minimum corner of the box
+     * @param  max    Maximum corner of the box
+     * @param  filter Which entities to track
+     *
+     * @return        The region
+     */
+    public static ProximityRegion box(String id, Vector3d min, Vector3d max, Filter filter) {
+        return new ProximityRegion(id, Shape.BOX, null, 0, min, max, filter);
+    }
+
+    /**
+     * Checks if a point is inside the region
+     *
+     * @param  x X coordinate
+     * @param  y Y coordinate
+     * @param  z Z coordinate
+     *
+     * @return   true if the point is inside the region
+     */
+    public boolean contains(double x, double y, double z) {
+        if (x < this.min.getX() || x > this.max.getX()
+            || y < this.min.getY() || y > this.max.getY()
+            || z < this.min.getZ() || z > this.max.getZ()) {
+            return false;
+        }
+        if (this.shape == Shape.BOX) {
+            return true;
+        }
+
+        double dx = x - this.center.getX();
+        double dy = y - this.center.getY();
+        double dz = z - this.center.getZ();
+        return dx * dx + dy * dy + dz * dz <= this.radius * this.radius;
+    }
+
+    /**
+     * Enum representing the shape of a region
+     */
+    public static enum Shape {
+        SPHERE,
+        BOX
+    }
+
+    /**
+     * Enum representing which entities a region tracks
+     */
+    public static enum Filter {
+        PLAYERS,
+        NPCS,
+        ALL
+    }
+
+}
@@ -0,0 +1,286 @@
+package io.hymods.lib.proximity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hypixel.hytale.server.npc.entities.NPCEntity;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * Tracks which entities are inside a set of watched regions and emits
+ * enter/exit events.
+ *
+ * Instead of calling {@code PlayerUtils.getPlayersInRadius} or
+ * {@code EntityUtils.searchEntities} once per region every tick, the tracker
+ * walks the entity store once per {@link #tick(World)}, looks up candidate
+ * regions through a coarse column grid (one cell per chunk), and diffs the
+ * result against the previous tick. Listeners are only called for entities
+ * whose membership changed.
+ *
+ * Usage:
+ * <pre>
+ * ProximityTracker tracker = new ProximityTracker();
+ * tracker.register(ProximityRegion.sphere("mymod:spawn", center, 16), listener);
+ *
+ * // From your world tick
+ * tracker.tick(world);
+ * </pre>
+ *
+ * A tracker is bound to a single world and must only be used from its thread.
+ */
+public class ProximityTracker {
+    // Hytale uses 32-block chunks
+    private static final int CELL_SIZE = 32;
+    private static final Watch[] NO_WATCHES = new Watch[0];
+
+    private final Map<String, Watch> watches = new LinkedHashMap<>();
+    private final Long2ObjectOpenHashMap<Watch[]> cells = new Long2ObjectOpenHashMap<>();
+    private final List<Watch> diffing = new ArrayList<>();
+    private boolean indexDirty = true;
+    private boolean playersOnly = true;
+
+    /**
+     * Registers (or replaces) a region. Entities already inside the region will
+     * receive an enter event on the next tick.
+     *
+     * @param region   The region to watch
+     * @param listener The listener receiving enter/exit events
+     */
+    public void register(ProximityRegion region, ProximityListener listener) {
+        if (region == null || listener == null) {
+            return;
+        }
+        this.watches.put(region.id(), new Watch(region, listener));
+        this.indexDirty = true;
+    }
+
+    /**
+     * Unregisters a region. No exit events are emitted for its members.
+     *
+     * @param  regionId The region identifier
+     *
+     * @return          true if the region was registered
+     */
+    public boolean unregister(String regionId) {
+        if (this.watches.remove(regionId) == null) {
+            return false;
+        }
+        this.indexDirty = true;
+        return true;
+    }
+
+    /**
+     * Gets a registered region
+     *
+     * @param  regionId The region identifier
+     *
+     * @return          The region, or null if not registered
+     */
+    public ProximityRegion getRegion(String regionId) {
+        Watch watch = this.watches.get(regionId);
+        return watch != null ? watch.region : null;
+    }
+
+    /**
+     * Gets the entities inside a region as of the last tick
+     *
+     * @param  regionId The region identifier
+     *
+     * @return          Unmodifiable view of the members, empty if not registered
+     */
+    public Set<Ref<EntityStore>> getMembers(String regionId) {
+        Watch watch = this.watches.get(regionId);
+        return watch != null ? Collections.unmodifiableSet(watch.members) : Set.of();
+    }
+
+    /**
+     * Updates region membership and notifies listeners of changes. Call this
+     * once per tick from the world thread.
+     *
+     * @param world The world to track entities in
+     */
+    public void tick(World world) {
+        if (this.watches.isEmpty()) {
+            return;
+        }
+        if (this.indexDirty) {
+            rebuildIndex();
+        }
+
+        final Store<EntityStore> store = world.getEntityStore().getStore();
+
+        BiConsumer<ArchetypeChunk<EntityStore>, CommandBuffer<EntityStore>> collector = (archetypeChunk, _) -> {
+            for (int index = 0; index < archetypeChunk.size(); index++) {
+                TransformComponent transform = archetypeChunk.getComponent(index, TransformComponent.getComponentType());
+                if (transform == null) {
+                    continue;
+                }
+
+                Vector3d pos = transform.getPosition();
+                Watch[] candidates = this.cells.get(cellKey(pos.getX(), pos.getZ()));
+                if (candidates == null) {
+                    continue;
+                }
+
+                Ref<EntityStore> entityRef = archetypeChunk.getReferenceTo(index);
+                int kind = KIND_UNKNOWN;
+                for (Watch watch : candidates) {
+                    if (!watch.region.contains(pos.getX(), pos.getY(), pos.getZ())) {
+                        continue;
+                    }
+                    if (watch.region.filter() != ProximityRegion.Filter.ALL) {
+                        if (kind == KIND_UNKNOWN) {
+                            kind = resolveKind(store, entityRef);
+                        }
+                        if (!watch.accepts(kind)) {
+                            continue;
+                        }
+                    }
+                    watch.current.add(entityRef);
+                }
+            }
+        };
+
+        Query<EntityStore> query = this.playersOnly ? PlayerRef.getComponentType() : TransformComponent.getComponentType();
+        store.forEachChunk(query, collector);
+
+        // Diff outside of the chunk iteration so listeners are free to touch the store,
+        // and over a copy so they are free to register and unregister regions
+        this.diffing.addAll(this.watches.values());
+        for (Watch watch : this.diffing) {
+            if (this.watches.get(watch.region.id()) == watch) {
+                watch.diff();
+            }
+        }
+        this.diffing.clear();
+    }
+
+    /**
+     * Clears all regions and membership state
+     */
+    public void clear() {
+        this.watches.clear();
+        this.cells.clear();
+        this.indexDirty = false;
+        this.playersOnly = true;
+    }
+
+    private void rebuildIndex() {
+        this.cells.clear();
+        this.playersOnly = true;
+
+        for (Watch watch : this.watches.values()) {
+            ProximityRegion region = watch.region;
+            if (region.filter() != ProximityRegion.Filter.PLAYERS) {
+                this.playersOnly = false;
+            }
+
+            int minCellX = Math.floorDiv((int) Math.floor(region.min().getX()), CELL_SIZE);
+            int maxCellX = Math.floorDiv((int) Math.floor(region.max().getX()), CELL_SIZE);
+            int minCellZ = Math.floorDiv((int) Math.floor(region.min().getZ()), CELL_SIZE);
+            int maxCellZ = Math.floorDiv((int) Math.floor(region.max().getZ()), CELL_SIZE);
+
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                    long key = packCell(cellX, cellZ);
+                    Watch[] existing = this.cells.getOrDefault(key, NO_WATCHES);
+                    Watch[] updated = new Watch[existing.length + 1];
+                    System.arraycopy(existing, 0, updated, 0, existing.length);
+                    updated[existing.length] = watch;
+                    this.cells.put(key, updated);
+                }
+            }
+        }
+
+        this.indexDirty = false;
+    }
+
+    private static long cellKey(double blockX, double blockZ) {
+        return packCell(Math.floorDiv((int) Math.floor(blockX), CELL_SIZE), Math.floorDiv((int) Math.floor(blockZ), CELL_SIZE));
+    }
+
+    private static long packCell(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    private static final int KIND_UNKNOWN = -1;
+    private static final int KIND_OTHER = 0;
+    private static final int KIND_PLAYER = 1;
+    private static final int KIND_NPC = 2;
+
+    private static int resolveKind(Store<EntityStore> store, Ref<EntityStore> entityRef) {
+        if (store.getComponent(entityRef, Player.getComponentType()) != null) {
+            return KIND_PLAYER;
+        }
+        if (store.getComponent(entityRef, NPCEntity.getComponentType()) != null) {
+            return KIND_NPC;
+        }
+        return KIND_OTHER;
+    }
+
+    /**
+     * A registered region with its listener and double-buffered membership sets
+     */
+    private static final class Watch {
+        private final ProximityRegion region;
+        private final ProximityListener listener;
+        private Set<Ref<EntityStore>> members = new HashSet<>();
+        private Set<Ref<EntityStore>> current = new HashSet<>();
+        private final List<Ref<EntityStore>> exited = new ArrayList<>();
+
+        private Watch(ProximityRegion region, ProximityListener listener) {
+            this.region = region;
+            this.listener = listener;
+        }
+
+        private boolean accepts(int kind) {
+            return switch (this.region.filter()) {
+                case PLAYERS -> kind == KIND_PLAYER;
+                case NPCS -> kind == KIND_NPC;
+                case ALL -> true;
+            };
+        }
+
+        private void diff() {
+            for (Ref<EntityStore> ref : this.members) {
+                if (!this.current.contains(ref)) {
+                    this.exited.add(ref);
+                }
+            }
+
+            Set<Ref<EntityStore>> previous = this.members;
+            this.members = this.current;
+            this.current = previous;
+
+            for (Ref<EntityStore> ref : this.members) {
+                if (!previous.contains(ref)) {
+                    this.listener.onEnter(this.region, ref);
+                }
+            }
+            for (Ref<EntityStore> ref : this.exited) {
+                this.listener.onExit(this.region, ref);
+            }
+
+            this.exited.clear();
+            this.current.clear();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package io.hymods.lib.snapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import io.hymods.lib.data.EntityInfo;
+import io.hymods.lib.data.EntitySearchResult;
+import io.hymods.lib.data.SearchParameters;
+import io.hymods.lib.utils.MathUtils;
+
+/**
+ * Immutable, packed copy of entity positions and types taken on the world
+ * thread by {@link EntitySnapshotPublisher}.
+ *
+ * All query methods only read the packed arrays, so a snapshot can be shared
+ * freely with worker or virtual threads. The entity references are only
+ * identifiers here: dereferencing them against the live store must still
+ * happen on the world thread, and they may have become invalid since the
+ * snapshot was taken.
+ */
+public final class EntitySnapshot {
+    public static final int TYPE_ENTITY = 0;
+    public static final int TYPE_PLAYER = 1;
+    public static final int TYPE_NPC = 2;
+
+    /**
+     * Snapshot with no entities, published before the first capture
+     */
+    @SuppressWarnings("unchecked")
+    public static final EntitySnapshot EMPTY = new EntitySnapshot(-1, 0L, 0, new double[0], new Ref[0], new int[0], new int[0], new String[0]);
+
+    private final long sequence;
+    private final long capturedAtNanos;
+    private final int size;
+    // x, y, z interleaved
+    private final double[] positions;
+    private final Ref<EntityStore>[] refs;
+    private final int[] typeIds;
+    private final int[] roleIndices;
+    private final String[] names;
+
+    EntitySnapshot(long sequence, long capturedAtNanos, int size, double[] positions, Ref<EntityStore>[] refs, int[] typeIds, int[] roleIndices, String[] names) {
+        this.sequence = sequence;
+        this.capturedAtNanos = capturedAtNanos;
+        this.size = size;
+        this.positions = positions;
+        this.refs = refs;
+        this.typeIds = typeIds;
+        this.roleIndices = roleIndices;
+        this.names = names;
+    }
+
+    /**
+     * @return The capture sequence number, increasing with every capture
+     */
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * @return The {@link System#nanoTime()} at which the snapshot was taken
+     */
+    public long getCapturedAtNanos() {
+        return this.capturedAtNanos;
+    }
+
+    /**
+     * @return The number of entities in the snapshot
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return true if the snapshot holds no entities
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public Ref<EntityStore> getRef(int index) {
+        return this.refs[index];
+    }
+
+    public double getX(int index) {
+        return this.positions[index * 3];
+    }
+
+    public double getY(int index) {
+        return this.positions[index * 3 + 1];
+    }
+
+    public double getZ(int index) {
+        return this.positions[index * 3 + 2];
+    }
+
+    /**
+     * @return A new vector holding the entity's position
+     */
+    public Vector3d getPosition(int index) {
+        return new Vector3d(getX(index), getY(index), getZ(index));
+    }
+
+    /**
+     * @return One of {@link #TYPE_ENTITY}, {@link #TYPE_PLAYER} or
+     *         {@link #TYPE_NPC}
+     */
+    public int getTypeId(int index) {
+        return this.typeIds[index];
+    }
+
+    /**
+     * @return The NPC role index, or -1 if the entity is not an NPC
+     */
+    public int getRoleIndex(int index) {
+        return this.roleIndices[index];
+    }
+
+    /**
+     * @return The player display name or NPC role name, empty for other entities
+     */
+    public String getName(int index) {
+        return this.names[index];
+    }
+
+    /**
+     * Calls an action for every entity within a radius
+     *
+     * @param center The center position
+     * @param radius The search radius
+     * @param action Receives the snapshot index of each entity in range
+     */
+    public void forEachInRadius(Vector3d center, double radius, IntConsumer action) {
+        final double cx = center.getX();
+        final double cy = center.getY();
+        final double cz = center.getZ();
+        final double radiusSquared = radius * radius;
+
+        for (int index = 0; index < this.size; index++) {
+            int offset = index * 3;
+            double dx = this.positions[offset] - cx;
+            double dy = this.positions[offset + 1] - cy;
+            double dz = this.positions[offset + 2] - cz;
+            if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+                action.accept(index);
+            }
+        }
+    }
+
+    /**
+     * Counts the entities within a radius
+     *
+     * @param  center The center position
+     * @param  radius The search radius
+     * @param  typeId The type to count, or -1 for all types
+     *
+     * @return        The number of matching entities
+     */
+    public int countInRadius(Vector3d center, double radius, int typeId) {
+        final int[] $count = {
+                0
+        };
+        forEachInRadius(center, radius, index -> {
+            if (typeId < 0 || this.typeIds[index] == typeId) {
+                $count[0]++;
+            }
+        });
+        return $count[0];
+    }
+
+    /**
+     * Gets the closest entity to a position
+     *
+     * @param  position  The position to search from
+     * @param  maxRadius Maximum search radius
+     * @param  filter    Optional filter on snapshot indices
+     *
+     * @return           The snapshot index of the closest entity, or -1 if none
+     *                   found
+     */
+    public int getClosest(Vector3d position, double maxRadius, IntPredicate filter) {
+        final double px = position.getX();
+        final double py = position.getY();
+        final double pz = position.getZ();
+        double closestDist = maxRadius * maxRadius;
+        int closest = -1;
+
+        for (int index = 0; index < this.size; index++) {
+            if (filter != null && !filter.test(index)) {
+                continue;
+            }
+            int offset = index * 3;
+            double dx = this.positions[offset] - px;
+            double dy = this.positions[offset + 1] - py;
+            double dz = this.positions[offset + 2] - pz;
+            double distSquared = dx * dx + dy * dy + dz * dz;
+            if (distSquared < closestDist) {
+                closestDist = distSquared;
+                closest = index;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Searches the snapshot with the same semantics as
+     * {@link io.hymods.lib.utils.EntityUtils#searchEntities(com.hypixel.hytale.server.core.universe.world.World, SearchParameters)}
+     *
+     * @param  params The search parameters
+     *
+     * @return        The search results
+     */
+    public EntitySearchResult search(SearchParameters params) {
+        List<EntityInfo> foundEntities = new ArrayList<>();
+
+        forEachInRadius(params.center(), params.radius(), index -> {
+            int typeId = this.typeIds[index];
+            boolean isPlayer = typeId == TYPE_PLAYER;
+            boolean isNPC = typeId == TYPE_NPC;
+            boolean isLiving = isPlayer || isNPC;
+
+            if (!params.includePlayer() && isPlayer) {
+                return;
+            }
+            if (!params.includeNPC() && isNPC) {
+                return;
+            }
+            if (!params.includeLiving() && !isLiving) {
+                return;
+            }
+
+            String name = this.names[index];
+            String type = "entity";
+            if (isPlayer) {
+                type = "player";
+            } else if (isNPC) {
+                type = name.isEmpty() ? "npc" : name;
+                name = name.isEmpty() ? "NPC" : name;
+            }
+
+            if (params.filterType() != null && !type.equalsIgnoreCase(params.filterType())) {
+                return;
+            }
+
+            Vector3d position = getPosition(index);
+            double distance = MathUtils.distance(position, params.center());
+            foundEntities.add(new EntityInfo(this.refs[index], name, type, position, distance, isPlayer, isNPC));
+        });
+
+        return new EntitySearchResult(Collections.unmodifiableList(foundEntities), params);
+    }
+
+}
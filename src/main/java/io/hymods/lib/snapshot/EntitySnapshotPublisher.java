@@ -0,0 +1,190 @@
+package io.hymods.lib.snapshot;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hypixel.hytale.server.npc.entities.NPCEntity;
+
+/**
+ * Captures {@link EntitySnapshot}s of a world and publishes them for readers on
+ * other threads.
+ *
+ * {@link #capture(World)} (or {@link #tick(World)}) runs on the world thread and
+ * swaps the new snapshot into a volatile field. {@link #current()} can be called
+ * from any thread and never blocks or touches the live store, so analytics, map
+ * rendering or AI planning can run on worker or virtual threads.
+ *
+ * Usage:
+ * <pre>
+ * EntitySnapshotPublisher snapshots = new EntitySnapshotPublisher(5);
+ *
+ * // From your world tick
+ * snapshots.tick(world);
+ *
+ * // From any thread
+ * EntitySnapshot snapshot = snapshots.current();
+ * int nearby = snapshot.countInRadius(center, 64, EntitySnapshot.TYPE_PLAYER);
+ * </pre>
+ */
+public class EntitySnapshotPublisher {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int intervalTicks;
+    private volatile EntitySnapshot current = EntitySnapshot.EMPTY;
+    private long sequence = 0;
+    private long ticks = 0;
+
+    // Scratch buffers reused between captures, only touched on the world thread
+    private int count;
+    private double[] positions = new double[INITIAL_CAPACITY * 3];
+    private Ref<EntityStore>[] refs = newRefArray(INITIAL_CAPACITY);
+    private int[] typeIds = new int[INITIAL_CAPACITY];
+    private int[] roleIndices = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+
+    /**
+     * Creates a publisher that captures on every tick
+     */
+    public EntitySnapshotPublisher() {
+        this(1);
+    }
+
+    /**
+     * Creates a publisher that captures every {@code intervalTicks} calls to
+     * {@link #tick(World)}
+     *
+     * @param intervalTicks Number of ticks between captures (minimum 1)
+     */
+    public EntitySnapshotPublisher(int intervalTicks) {
+        this.intervalTicks = Math.max(1, intervalTicks);
+    }
+
+    /**
+     * Gets the latest published snapshot. Safe to call from any thread.
+     *
+     * @return The latest snapshot, or {@link EntitySnapshot#EMPTY} before the
+     *         first capture
+     */
+    public EntitySnapshot current() {
+        return this.current;
+    }
+
+    /**
+     * Captures a snapshot if the capture interval has elapsed. Must be called on
+     * the world thread.
+     *
+     * @param  world The world to capture
+     *
+     * @return       true if a new snapshot was published
+     */
+    public boolean tick(World world) {
+        if (this.ticks++ % this.intervalTicks != 0) {
+            return false;
+        }
+        capture(world);
+        return true;
+    }
+
+    /**
+     * Captures and publishes a new snapshot. Must be called on the world thread.
+     *
+     * @param  world The world to capture
+     *
+     * @return       The published snapshot
+     */
+    public EntitySnapshot capture(World world) {
+        final Store<EntityStore> store = world.getEntityStore().getStore();
+        this.count = 0;
+
+        BiConsumer<ArchetypeChunk<EntityStore>, CommandBuffer<EntityStore>> collector = (archetypeChunk, _) -> {
+            ensureCapacity(this.count + archetypeChunk.size());
+            for (int index = 0; index < archetypeChunk.size(); index++) {
+                TransformComponent transform = archetypeChunk.getComponent(index, TransformComponent.getComponentType());
+                if (transform == null) {
+                    continue;
+                }
+
+                Ref<EntityStore> entityRef = archetypeChunk.getReferenceTo(index);
+                Vector3d pos = transform.getPosition();
+                int slot = this.count++;
+
+                this.positions[slot * 3] = pos.getX();
+                this.positions[slot * 3 + 1] = pos.getY();
+                this.positions[slot * 3 + 2] = pos.getZ();
+                this.refs[slot] = entityRef;
+                this.typeIds[slot] = EntitySnapshot.TYPE_ENTITY;
+                this.roleIndices[slot] = -1;
+                this.names[slot] = "";
+
+                Player player = store.getComponent(entityRef, Player.getComponentType());
+                if (player != null) {
+                    this.typeIds[slot] = EntitySnapshot.TYPE_PLAYER;
+                    this.names[slot] = player.getDisplayName();
+                    continue;
+                }
+
+                NPCEntity npc = store.getComponent(entityRef, NPCEntity.getComponentType());
+                if (npc != null) {
+                    this.typeIds[slot] = EntitySnapshot.TYPE_NPC;
+                    this.roleIndices[slot] = npc.getRoleIndex();
+                    this.names[slot] = npc.getRoleName() != null ? npc.getRoleName() : "";
+                }
+            }
+        };
+
+        store.forEachChunk(TransformComponent.getComponentType(), collector);
+
+        // Copy out of the scratch buffers so the published snapshot is never mutated
+        EntitySnapshot snapshot = new EntitySnapshot(
+            this.sequence++,
+            System.nanoTime(),
+            this.count,
+            Arrays.copyOf(this.positions, this.count * 3),
+            Arrays.copyOf(this.refs, this.count),
+            Arrays.copyOf(this.typeIds, this.count),
+            Arrays.copyOf(this.roleIndices, this.count),
+            Arrays.copyOf(this.names, this.count)
+        );
+
+        // Drop references held by the scratch buffers
+        Arrays.fill(this.refs, 0, this.count, null);
+        Arrays.fill(this.names, 0, this.count, null);
+
+        this.current = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Discards the published snapshot, e.g. when the world is unloaded
+     */
+    public void clear() {
+        this.current = EntitySnapshot.EMPTY;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= this.typeIds.length) {
+            return;
+        }
+
+        int capacity = Math.max(required, this.typeIds.length * 2);
+        this.positions = Arrays.copyOf(this.positions, capacity * 3);
+        this.refs = Arrays.copyOf(this.refs, capacity);
+        this.typeIds = Arrays.copyOf(this.typeIds, capacity);
+        this.roleIndices = Arrays.copyOf(this.roleIndices, capacity);
+        this.names = Arrays.copyOf(this.names, capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Ref<EntityStore>[] newRefArray(int size) {
+        return new Ref[size];
+    }
+}
@@ -0,0 +1,144 @@
+package io.hymods.lib.stats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import io.hymods.lib.data.EntityHealth;
+import io.hymods.lib.utils.StatUtils;
+
+/**
+ * Tracks the health of every entity in a world with change versions.
+ *
+ * Each {@link #tick(World)} reads all health values in a single pass over the
+ * store. Whenever an entity's health changes, the tracker's version is bumped
+ * and stamped on that entity, so consumers (HUDs, inspection) can remember the
+ * version they last rendered and skip work until it changes:
+ * <pre>
+ * long version = tracker.getVersion(ref);
+ * if (version != lastRenderedVersion) {
+ *     render(tracker.getHealth(ref));
+ *     lastRenderedVersion = version;
+ * }
+ * </pre>
+ *
+ * A tracker is bound to a single world and must only be used from its thread.
+ */
+public class HealthTracker {
+    private final Map<Ref<EntityStore>, Tracked> entries = new HashMap<>();
+    private final List<Ref<EntityStore>> changed = new ArrayList<>();
+
+    private long version = 0;
+    private long pass = 0;
+
+    /**
+     * Reads the health of all entities and updates versions. Call this once
+     * per tick from the world thread.
+     *
+     * @param world The world to read health from
+     */
+    public void tick(World world) {
+        update(world.getEntityStore().getStore());
+    }
+
+    /**
+     * Reads the health of all entities in a store and updates versions
+     *
+     * @param store The entity store
+     */
+    public void update(Store<EntityStore> store) {
+        final long currentPass = ++this.pass;
+        this.changed.clear();
+
+        StatUtils.forEachHealth(store, (ref, current, max) -> {
+            Tracked entry = this.entries.get(ref);
+            if (entry == null) {
+                entry = new Tracked();
+                this.entries.put(ref, entry);
+            } else if (entry.current == current && entry.max == max) {
+                entry.lastSeenPass = currentPass;
+                return;
+            }
+
+            entry.current = current;
+            entry.max = max;
+            entry.version = ++this.version;
+            entry.lastSeenPass = currentPass;
+            this.changed.add(ref);
+        });
+
+        // Entities that lost their stats or were removed
+        if (this.entries.values().removeIf(entry -> entry.lastSeenPass != currentPass)) {
+            this.version++;
+        }
+    }
+
+    /**
+     * Gets the last read health of an entity
+     *
+     * @param  ref The entity reference
+     *
+     * @return     The health, or null if the entity is not tracked
+     */
+    public @NullableDecl EntityHealth getHealth(Ref<EntityStore> ref) {
+        Tracked entry = this.entries.get(ref);
+        return entry != null ? new EntityHealth(entry.current, entry.max) : null;
+    }
+
+    /**
+     * Gets the version at which an entity's health last changed
+     *
+     * @param  ref The entity reference
+     *
+     * @return     The entity's version, or 0 if the entity is not tracked
+     */
+    public long getVersion(Ref<EntityStore> ref) {
+        Tracked entry = this.entries.get(ref);
+        return entry != null ? entry.version : 0;
+    }
+
+    /**
+     * @return the version of the most recent change to any tracked entity
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * @return the entities whose health changed during the last update
+     */
+    public List<Ref<EntityStore>> getChanged() {
+        return List.copyOf(this.changed);
+    }
+
+    /**
+     * @return the number of tracked entities
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Forgets all tracked entities
+     */
+    public void clear() {
+        this.entries.clear();
+        this.changed.clear();
+        this.version++;
+    }
+
+    private static final class Tracked {
+        private float current;
+        private float max;
+        private long version;
+        private long lastSeenPass;
+    }
+}
@@ -0,0 +1,39 @@
+package io.hymods.lib.tiles;
+
+/**
+ * A tile image compressed by {@link TileEncoder}.
+ *
+ * Key frames hold the whole tile. Delta frames only hold the pixels that
+ * changed since {@code baseVersion}, and can only be decoded on top of that
+ * version of the tile.
+ *
+ * @param tile The tile coordinate
+ * @param width Width in pixels
+ * @param height Height in pixels
+ * @param version Version of the tile this frame produces
+ * @param baseVersion Version the delta applies to, or -1 for a key frame
+ * @param data The encoded payload
+ */
+public record EncodedTile(TileCoord tile, int width, int height, int version, int baseVersion, byte[] data) {
+
+    /**
+     * Check if this frame needs the previous version of the tile to be decoded.
+     */
+    public boolean isDelta() {
+        return baseVersion >= 0;
+    }
+
+    /**
+     * Get the size of the payload in bytes.
+     */
+    public int size() {
+        return data.length;
+    }
+
+    /**
+     * Get the size of the uncompressed tile in bytes.
+     */
+    public int rawSize() {
+        return width * height * Integer.BYTES;
+    }
+}
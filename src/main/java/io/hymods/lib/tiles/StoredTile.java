@@ -0,0 +1,50 @@
+package io.hymods.lib.tiles;
+
+import java.nio.IntBuffer;
+
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * A tile read from a {@link TileDiskStore}.
+ * 
+ * The buffers are read-only views of the memory-mapped region file, so reading
+ * a tile does not copy its pixels. They stay valid after the region is compacted
+ * or the store is closed.
+ * 
+ * @param key The tile key
+ * @param version Number of times the tile was written
+ * @param width Width in pixels
+ * @param height Height in pixels
+ * @param pixels ARGB pixels, row by row
+ * @param heights Surface heights the tile was rendered from, or null if not stored
+ */
+public record StoredTile(
+    TileKey key,
+    int version,
+    int width,
+    int height,
+    IntBuffer pixels,
+    @NullableDecl IntBuffer heights
+) {
+    
+    /**
+     * Copy the pixels into a tile image.
+     */
+    public TileImage toImage() {
+        int[] argb = new int[width * height];
+        pixels.duplicate().get(argb);
+        return new TileImage(key.tile(), width, height, argb);
+    }
+    
+    /**
+     * Copy the surface heights, or return null if they were not stored.
+     */
+    public int[] copyHeights() {
+        if (heights == null) {
+            return null;
+        }
+        int[] copy = new int[width * height];
+        heights.duplicate().get(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,306 @@
+package io.hymods.lib.tiles;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+
+/**
+ * Server-wide cache of rendered tiles, shared by every player's grid.
+ * 
+ * Entries are evicted least recently used first once the cache holds more than
+ * its memory cap. Tiles are kept in primitive maps keyed by their packed
+ * coordinate ({@link TileCoord#pack()}), one per world, tile size and zoom
+ * level, so large caches don't pay for a key object per tile.
+ * 
+ * Tiles can be pinned with {@link #acquire(TileKey)} while a grid shows them;
+ * pinned tiles are never evicted, so the cap can be exceeded while many
+ * distinct tiles are on screen.
+ * 
+ * All methods are thread-safe.
+ */
+public class TileCache {
+    // Tiles grouped by world, tile size and zoom level, keyed by packed tile coordinate
+    private final List<Layer> layers = new ArrayList<>();
+    
+    private long maxBytes;
+    private long bytes = 0;
+    private long clock = 0;
+    
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    
+    /**
+     * @param maxBytes Memory cap for unpinned tiles, in bytes
+     */
+    public TileCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+    
+    /**
+     * Get a cached tile.
+     * 
+     * @param key The tile key
+     * @return The tile, or null if it is not cached
+     */
+    public synchronized TileImage get(TileKey key) {
+        Layer layer = findLayer(key, false);
+        Entry entry = layer != null ? layer.entries.getAndMoveToLast(key.tile().pack()) : null;
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        entry.lastUsed = ++clock;
+        hits++;
+        return entry.image;
+    }
+    
+    /**
+     * Check if a tile is cached, without counting a hit or miss or touching its
+     * LRU position.
+     */
+    public synchronized boolean contains(TileKey key) {
+        Layer layer = findLayer(key, false);
+        return layer != null && layer.entries.containsKey(key.tile().pack());
+    }
+    
+    /**
+     * Add or replace a tile.
+     * 
+     * @param key The tile key
+     * @param image The rendered tile
+     */
+    public synchronized void put(TileKey key, TileImage image) {
+        Layer layer = findLayer(key, true);
+        Entry previous = layer.entries.putAndMoveToLast(key.tile().pack(), new Entry(image, ++clock));
+        if (previous != null) {
+            bytes -= sizeOf(previous.image);
+        }
+        bytes += sizeOf(image);
+        evict();
+    }
+    
+    /**
+     * Pin a tile so it is not evicted. The tile does not need to be cached yet.
+     * 
+     * @param key The tile key
+     */
+    public synchronized void acquire(TileKey key) {
+        findLayer(key, true).references.addTo(key.tile().pack(), 1);
+    }
+    
+    /**
+     * Unpin a tile pinned with {@link #acquire(TileKey)}.
+     * 
+     * @param key The tile key
+     */
+    public synchronized void release(TileKey key) {
+        Layer layer = findLayer(key, false);
+        if (layer == null) {
+            return;
+        }
+        
+        long packed = key.tile().pack();
+        int count = layer.references.get(packed);
+        if (count > 1) {
+            layer.references.put(packed, count - 1);
+        } else if (count == 1) {
+            layer.references.remove(packed);
+            evict();
+        }
+    }
+    
+    /**
+     * Remove a tile, e.g. after the world changed. Pins are kept.
+     * 
+     * @param key The tile key
+     */
+    public synchronized void invalidate(TileKey key) {
+        Layer layer = findLayer(key, false);
+        Entry removed = layer != null ? layer.entries.remove(key.tile().pack()) : null;
+        if (removed != null) {
+            bytes -= sizeOf(removed.image);
+        }
+    }
+    
+    /**
+     * Remove all tiles of a world.
+     * 
+     * @param worldName The name of the world
+     */
+    public synchronized void invalidateWorld(String worldName) {
+        Iterator<Layer> iterator = layers.iterator();
+        while (iterator.hasNext()) {
+            Layer layer = iterator.next();
+            if (!layer.worldName.equals(worldName)) {
+                continue;
+            }
+            for (Entry entry : layer.entries.values()) {
+                bytes -= sizeOf(entry.image);
+            }
+            layer.entries.clear();
+            if (layer.references.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+    
+    /**
+     * Remove all tiles and pins.
+     */
+    public synchronized void clear() {
+        layers.clear();
+        bytes = 0;
+    }
+    
+    /**
+     * Set the memory cap, evicting tiles if needed.
+     * 
+     * @param maxBytes Memory cap for unpinned tiles, in bytes
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        evict();
+    }
+    
+    /**
+     * Get the cache counters.
+     */
+    public synchronized Stats getStats() {
+        int entries = 0;
+        int pinned = 0;
+        for (Layer layer : layers) {
+            entries += layer.entries.size();
+            pinned += layer.references.size();
+        }
+        return new Stats(hits, misses, evictions, entries, bytes, pinned);
+    }
+    
+    /**
+     * Reset the hit, miss and eviction counters.
+     */
+    public synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+    
+    private Layer findLayer(TileKey key, boolean create) {
+        // There are only a few layers, one per world, tile size and zoom level in use
+        for (int i = 0; i < layers.size(); i++) {
+            Layer layer = layers.get(i);
+            if (key.isInLayer(layer.worldName, layer.tileSizeChunks, layer.zoom)) {
+                return layer;
+            }
+        }
+        if (!create) {
+            return null;
+        }
+        
+        Layer layer = new Layer(key.worldName(), key.tileSizeChunks(), key.zoom());
+        layers.add(layer);
+        return layer;
+    }
+    
+    private void evict() {
+        if (bytes <= maxBytes) {
+            return;
+        }
+        
+        // Each layer is ordered least recently used first; evict the oldest of their heads
+        boolean[] exhausted = new boolean[layers.size()];
+        while (bytes > maxBytes) {
+            Layer oldest = null;
+            long oldestUsed = Long.MAX_VALUE;
+            for (int i = 0; i < layers.size(); i++) {
+                Layer layer = layers.get(i);
+                if (exhausted[i] || !skipPinned(layer)) {
+                    exhausted[i] = true;
+                    continue;
+                }
+                long lastUsed = layer.entries.get(layer.entries.firstLongKey()).lastUsed;
+                if (lastUsed < oldestUsed) {
+                    oldest = layer;
+                    oldestUsed = lastUsed;
+                }
+            }
+            if (oldest == null) {
+                // Everything left is pinned
+                return;
+            }
+            
+            Entry removed = oldest.entries.remove(oldest.entries.firstLongKey());
+            bytes -= sizeOf(removed.image);
+            evictions++;
+        }
+    }
+    
+    /**
+     * Move pinned tiles at the head of a layer to its tail. Pinned tiles are on
+     * screen, so they count as just used.
+     * 
+     * @return false if the layer holds no unpinned tiles
+     */
+    private boolean skipPinned(Layer layer) {
+        for (int i = layer.entries.size(); i > 0; i--) {
+            long head = layer.entries.firstLongKey();
+            if (!layer.references.containsKey(head)) {
+                return true;
+            }
+            layer.entries.getAndMoveToLast(head).lastUsed = ++clock;
+        }
+        return false;
+    }
+    
+    private static long sizeOf(TileImage image) {
+        return (long) image.argb().length * Integer.BYTES;
+    }
+    
+    private static final class Layer {
+        private final String worldName;
+        private final int tileSizeChunks;
+        private final int zoom;
+        private final Long2ObjectLinkedOpenHashMap<Entry> entries = new Long2ObjectLinkedOpenHashMap<>();
+        private final Long2IntOpenHashMap references = new Long2IntOpenHashMap();
+        
+        private Layer(String worldName, int tileSizeChunks, int zoom) {
+            this.worldName = worldName;
+            this.tileSizeChunks = tileSizeChunks;
+            this.zoom = zoom;
+        }
+    }
+    
+    private static final class Entry {
+        private final TileImage image;
+        private long lastUsed;
+        
+        private Entry(TileImage image, long lastUsed) {
+            this.image = image;
+            this.lastUsed = lastUsed;
+        }
+    }
+    
+    /**
+     * Cache counters.
+     * 
+     * @param hits Number of lookups that found a tile
+     * @param misses Number of lookups that found nothing
+     * @param evictions Number of tiles evicted to stay under the memory cap
+     * @param entries Number of cached tiles
+     * @param bytes Memory used by cached tiles
+     * @param pinned Number of pinned tiles
+     */
+    public record Stats(long hits, long misses, long evictions, int entries, long bytes, int pinned) {
+        
+        /**
+         * Get the fraction of lookups that found a tile.
+         */
+        public double hitRate() {
+            long total = hits + misses;
+            return total > 0 ? (double) hits / total : 0;
+        }
+    }
+}
@@ -121,6 +121,93 @@ public record TileCoord(int x, int z) {
         return new TileCoord(this.x + dx, this.z + dz);
     }
     
+    /**
+     * Get the tile one zoom level out that contains this tile.
+     * Each zoomed-out tile covers 2x2 tiles of the level below.
+     * 
+     * @return The parent tile coordinate
+     */
+    public TileCoord parent() {
+        return ancestor(1);
+    }
+    
+    /**
+     * Get the tile several zoom levels out that contains this tile.
+     * 
+     * @param levels Number of zoom levels to go out
+     * @return The ancestor tile coordinate
+     */
+    public TileCoord ancestor(int levels) {
+        // Arithmetic shifts round toward negative infinity, like floorDiv
+        return new TileCoord(x >> levels, z >> levels);
+    }
+    
+    /**
+     * Get one of the 2x2 tiles one zoom level in that this tile covers.
+     * 
+     * @param dx 0 for the west child, 1 for the east child
+     * @param dz 0 for the north child, 1 for the south child
+     * @return The child tile coordinate
+     */
+    public TileCoord child(int dx, int dz) {
+        return new TileCoord(x * 2 + dx, z * 2 + dz);
+    }
+    
+    /**
+     * Get the north-west-most tile several zoom levels in that this tile covers.
+     * 
+     * @param levels Number of zoom levels to go in
+     * @return The first descendant tile coordinate
+     */
+    public TileCoord firstDescendant(int levels) {
+        return new TileCoord(x << levels, z << levels);
+    }
+    
+    /**
+     * Pack this coordinate into a single long, e.g. as a key of a primitive map.
+     * 
+     * @return The packed coordinate
+     */
+    public long pack() {
+        return pack(x, z);
+    }
+    
+    /**
+     * Pack a tile coordinate into a single long, with X in the high 32 bits
+     * and Z in the low 32 bits.
+     * 
+     * @param x Tile X coordinate
+     * @param z Tile Z coordinate
+     * @return The packed coordinate
+     */
+    public static long pack(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Get the X coordinate of a packed coordinate.
+     */
+    public static int unpackX(long packed) {
+        return (int) (packed >> 32);
+    }
+    
+    /**
+     * Get the Z coordinate of a packed coordinate.
+     */
+    public static int unpackZ(long packed) {
+        return (int) packed;
+    }
+    
+    /**
+     * Create a tile coordinate from a packed coordinate.
+     * 
+     * @param packed A coordinate packed with {@link #pack(int, int)}
+     * @return The tile coordinate
+     */
+    public static TileCoord unpack(long packed) {
+        return new TileCoord(unpackX(packed), unpackZ(packed));
+    }
+    
     @Override
     public String toString() {
         return "TileCoord(" + x + ", " + z + ")";
@@ -0,0 +1,29 @@
+package io.hymods.lib.tiles;
+
+/**
+ * Re-rendered pixels of a rectangle within a tile, to patch an already shown
+ * tile instead of sending it again.
+ * 
+ * @param key The tile key
+ * @param x X offset of the rectangle within the tile, in pixels
+ * @param z Z offset of the rectangle within the tile, in pixels
+ * @param width Width of the rectangle in pixels
+ * @param height Height of the rectangle in pixels
+ * @param argb Pixel colors of the rectangle, row by row
+ */
+public record TileDelta(TileKey key, int x, int z, int width, int height, int[] argb) {
+    
+    /**
+     * Copy a tile image with this delta applied.
+     * 
+     * @param image The full tile image
+     * @return A new image with the rectangle replaced
+     */
+    public TileImage applyTo(TileImage image) {
+        int[] patched = image.argb().clone();
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(argb, row * width, patched, (z + row) * image.width() + x, width);
+        }
+        return new TileImage(image.tile(), image.width(), image.height(), patched);
+    }
+}
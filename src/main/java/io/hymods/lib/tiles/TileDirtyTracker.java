@@ -0,0 +1,206 @@
+package io.hymods.lib.tiles;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import io.hymods.lib.utils.WorldUtils;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+/**
+ * Tracks which parts of rendered tiles are out of date after block changes.
+ * 
+ * Each changed block grows its tile's dirty rectangle to include it, so many
+ * changes in the same area (e.g., a player building) are re-rendered together.
+ * A tile is handed out for re-rendering at most once per throttle interval.
+ * 
+ * Once {@link #install()} is called, blocks broken or placed by players and
+ * NPCs, changes made through {@link WorldUtils#setBlock} and changes reported
+ * with {@link WorldUtils#notifyBlockChanged} are tracked automatically.
+ * 
+ * All methods are thread-safe.
+ */
+public class TileDirtyTracker implements WorldUtils.BlockChangeListener {
+    private final int tileSizeChunks;
+    private final int tileSizeBlocks;
+    private long throttleMillis;
+    
+    // Dirty tiles of each world, keyed by packed tile coordinate
+    private final Map<String, WorldTiles> worlds = new HashMap<>();
+    
+    /**
+     * @param tileSizeChunks Size of each tile in chunks
+     * @param throttleMillis Minimum time between two re-renders of the same tile
+     */
+    public TileDirtyTracker(int tileSizeChunks, long throttleMillis) {
+        this.tileSizeChunks = tileSizeChunks;
+        this.tileSizeBlocks = tileSizeChunks * TileCoord.BLOCKS_PER_CHUNK;
+        this.throttleMillis = throttleMillis;
+    }
+    
+    /**
+     * Start tracking block changes reported to {@link WorldUtils}, including
+     * blocks broken and placed in game (see {@link io.hymods.lib.utils.BlockChangeSystems}).
+     */
+    public void install() {
+        WorldUtils.addBlockChangeListener(this);
+    }
+    
+    /**
+     * Stop tracking block changes reported to {@link WorldUtils}.
+     */
+    public void uninstall() {
+        WorldUtils.removeBlockChangeListener(this);
+    }
+    
+    @Override
+    public void onBlockChanged(World world, int x, int y, int z, BlockType blockType) {
+        markDirty(world.getName(), x, z, x, z);
+    }
+    
+    /**
+     * Mark an area as changed. The area may span several tiles.
+     * 
+     * @param worldName The name of the world
+     * @param minBlockX Minimum block X coordinate
+     * @param minBlockZ Minimum block Z coordinate
+     * @param maxBlockX Maximum block X coordinate (inclusive)
+     * @param maxBlockZ Maximum block Z coordinate (inclusive)
+     */
+    public synchronized void markDirty(String worldName, int minBlockX, int minBlockZ, int maxBlockX, int maxBlockZ) {
+        int minTileX = Math.floorDiv(minBlockX, tileSizeBlocks);
+        int minTileZ = Math.floorDiv(minBlockZ, tileSizeBlocks);
+        int maxTileX = Math.floorDiv(maxBlockX, tileSizeBlocks);
+        int maxTileZ = Math.floorDiv(maxBlockZ, tileSizeBlocks);
+        
+        Long2ObjectLinkedOpenHashMap<int[]> dirty = worlds.computeIfAbsent(worldName, _ -> new WorldTiles()).dirty;
+        for (int tileZ = minTileZ; tileZ <= maxTileZ; tileZ++) {
+            for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                int originX = tileX * tileSizeBlocks;
+                int originZ = tileZ * tileSizeBlocks;
+                int localMinX = Math.max(minBlockX, originX) - originX;
+                int localMinZ = Math.max(minBlockZ, originZ) - originZ;
+                int localMaxX = Math.min(maxBlockX, originX + tileSizeBlocks - 1) - originX;
+                int localMaxZ = Math.min(maxBlockZ, originZ + tileSizeBlocks - 1) - originZ;
+                
+                long packed = TileCoord.pack(tileX, tileZ);
+                int[] rect = dirty.get(packed);
+                if (rect == null) {
+                    dirty.put(packed, new int[]{localMinX, localMinZ, localMaxX, localMaxZ});
+                } else {
+                    rect[0] = Math.min(rect[0], localMinX);
+                    rect[1] = Math.min(rect[1], localMinZ);
+                    rect[2] = Math.max(rect[2], localMaxX);
+                    rect[3] = Math.max(rect[3], localMaxZ);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Take dirty regions of a world whose throttle interval has passed, oldest first.
+     * 
+     * @param worldName The name of the world
+     * @param nowMillis Current time in milliseconds
+     * @param maxRegions Maximum number of regions to take
+     * @param out Receives the regions
+     * @return The number of regions taken
+     */
+    public synchronized int pollDue(String worldName, long nowMillis, int maxRegions, List<DirtyRegion> out) {
+        WorldTiles tiles = worlds.get(worldName);
+        if (tiles == null) {
+            return 0;
+        }
+        
+        int taken = 0;
+        ObjectIterator<Long2ObjectMap.Entry<int[]>> iterator = tiles.dirty.long2ObjectEntrySet().fastIterator();
+        while (taken < maxRegions && iterator.hasNext()) {
+            Long2ObjectMap.Entry<int[]> entry = iterator.next();
+            long packed = entry.getLongKey();
+            if (tiles.lastRendered.containsKey(packed) && nowMillis - tiles.lastRendered.get(packed) < throttleMillis) {
+                continue;
+            }
+            
+            int[] rect = entry.getValue();
+            TileKey key = TileKey.of(worldName, TileCoord.unpack(packed), tileSizeChunks);
+            out.add(new DirtyRegion(key, rect[0], rect[1], rect[2] - rect[0] + 1, rect[3] - rect[1] + 1));
+            tiles.lastRendered.put(packed, nowMillis);
+            iterator.remove();
+            taken++;
+        }
+        
+        if (tiles.lastRendered.size() > 4 * (tiles.dirty.size() + 64)) {
+            // Throttle entries only matter for one interval
+            tiles.lastRendered.long2LongEntrySet().removeIf(entry -> nowMillis - entry.getLongValue() >= throttleMillis);
+        }
+        return taken;
+    }
+    
+    /**
+     * Check if a tile has changes waiting to be re-rendered.
+     */
+    public synchronized boolean isDirty(TileKey key) {
+        if (key.tileSizeChunks() != tileSizeChunks || key.zoom() != 0) {
+            return false;
+        }
+        WorldTiles tiles = worlds.get(key.worldName());
+        return tiles != null && tiles.dirty.containsKey(key.tile().pack());
+    }
+    
+    /**
+     * Get the number of tiles with changes waiting to be re-rendered.
+     */
+    public synchronized int getDirtyCount() {
+        int count = 0;
+        for (WorldTiles tiles : worlds.values()) {
+            count += tiles.dirty.size();
+        }
+        return count;
+    }
+    
+    /**
+     * Set the minimum time between two re-renders of the same tile.
+     */
+    public synchronized void setThrottleMillis(long throttleMillis) {
+        this.throttleMillis = throttleMillis;
+    }
+    
+    /**
+     * Get the tile size in chunks.
+     */
+    public int getTileSizeChunks() {
+        return tileSizeChunks;
+    }
+    
+    /**
+     * Forget all pending changes.
+     */
+    public synchronized void clear() {
+        worlds.clear();
+    }
+    
+    private static final class WorldTiles {
+        // Dirty rectangles in tile-local block coordinates, in the order they became dirty
+        private final Long2ObjectLinkedOpenHashMap<int[]> dirty = new Long2ObjectLinkedOpenHashMap<>();
+        private final Long2LongOpenHashMap lastRendered = new Long2LongOpenHashMap();
+    }
+    
+    /**
+     * A rectangle of a tile that needs re-rendering, in tile-local block coordinates.
+     * 
+     * @param key The tile key
+     * @param x X offset within the tile
+     * @param z Z offset within the tile
+     * @param width Width in blocks
+     * @param height Height (Z extent) in blocks
+     */
+    public record DirtyRegion(TileKey key, int x, int z, int width, int height) {
+    }
+}
@@ -0,0 +1,289 @@
+package io.hymods.lib.tiles;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+/**
+ * Persists rendered tiles across restarts.
+ *
+ * Tiles are grouped in region files of 32x32 tiles per world, tile size and
+ * zoom level, stored under
+ * {@code <root>/<world>/s<tileSizeChunks>_z<zoom>/r.<regionX>.<regionZ>.tiles}. Each
+ * region file starts with a fixed index of every tile it can hold, followed by
+ * the tile records. Reads are memory-mapped and return views of the file
+ * instead of copies.
+ *
+ * Writes are forced to disk in batches on a background thread rather than one
+ * by one, and on {@link #flush()} and {@link #close()}.
+ *
+ * Every write of a tile increments its version. Rewritten tiles leave their old
+ * record behind; once a region holds more garbage than the compaction
+ * threshold, it is compacted on a background thread.
+ *
+ * All methods are thread-safe. I/O errors are logged and reported as a missing
+ * tile or a failed write.
+ */
+public class TileDiskStore implements AutoCloseable {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final long MIN_COMPACTION_GARBAGE = 1024 * 1024;
+
+    private final Path root;
+    private final Map<RegionKey, TileRegionFile> regions = new ConcurrentHashMap<>();
+    private final Map<RegionKey, AtomicBoolean> compacting = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "HymodsLib-TileCompactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile double compactionThreshold = 0.5;
+
+    /**
+     * @param root Directory to store region files in
+     */
+    public TileDiskStore(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Read a tile.
+     *
+     * @param key The tile key
+     * @return The stored tile, or null if it was never written
+     */
+    public @NullableDecl StoredTile read(TileKey key) {
+        TileRegionFile region = getRegion(key, false);
+        if (region == null) {
+            return null;
+        }
+
+        try {
+            return region.read(localIndex(key), key);
+        } catch (IOException e) {
+            LOGGER.atWarning().log("Failed to read " + key + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write a tile, replacing any previous version.
+     *
+     * @param key The tile key
+     * @param image The rendered tile
+     * @param surfaceHeights Heights the tile was rendered from, one per pixel (can be null)
+     * @return The new version of the tile, or -1 if it could not be written
+     */
+    public int write(TileKey key, TileImage image, @NullableDecl int[] surfaceHeights) {
+        TileRegionFile region = getRegion(key, true);
+        if (region == null) {
+            return -1;
+        }
+
+        try {
+            int version = region.write(localIndex(key), image, surfaceHeights);
+            scheduleFlush();
+            scheduleCompaction(regionKey(key), region);
+            return version;
+        } catch (IOException e) {
+            LOGGER.atWarning().log("Failed to write " + key + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Delete a tile, e.g. after the area it shows changed.
+     *
+     * @param key The tile key
+     * @return true if the tile was stored
+     */
+    public boolean delete(TileKey key) {
+        TileRegionFile region = getRegion(key, false);
+        if (region == null) {
+            return false;
+        }
+
+        try {
+            boolean deleted = region.delete(localIndex(key));
+            scheduleFlush();
+            scheduleCompaction(regionKey(key), region);
+            return deleted;
+        } catch (IOException e) {
+            LOGGER.atWarning().log("Failed to delete " + key + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Get the stored version of a tile.
+     *
+     * @param key The tile key
+     * @return The number of times the tile was written, 0 if never
+     */
+    public int getVersion(TileKey key) {
+        TileRegionFile region = getRegion(key, false);
+        return region != null ? region.getVersion(localIndex(key)) : 0;
+    }
+
+    /**
+     * Set the fraction of a region file that may be garbage before it is
+     * compacted.
+     *
+     * @param threshold Fraction between 0 and 1
+     */
+    public void setCompactionThreshold(double threshold) {
+        this.compactionThreshold = Math.max(0, Math.min(1, threshold));
+    }
+
+    /**
+     * Compact every open region holding garbage, on the calling thread.
+     */
+    public void compactAll() {
+        for (Map.Entry<RegionKey, TileRegionFile> entry : regions.entrySet()) {
+            compact(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Write pending changes to disk.
+     */
+    public void flush() {
+        for (TileRegionFile region : regions.values()) {
+            try {
+                region.force();
+            } catch (IOException e) {
+                LOGGER.atWarning().log("Failed to flush tile region: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Flush and close all region files. Pending compactions are abandoned.
+     */
+    @Override
+    public void close() {
+        compactor.shutdownNow();
+        flush();
+        for (TileRegionFile region : regions.values()) {
+            try {
+                region.close();
+            } catch (IOException e) {
+                LOGGER.atWarning().log("Failed to close tile region: " + e.getMessage());
+            }
+        }
+        regions.clear();
+    }
+
+    private TileRegionFile getRegion(TileKey key, boolean create) {
+        RegionKey regionKey = regionKey(key);
+        TileRegionFile region = regions.get(regionKey);
+        if (region != null) {
+            return region;
+        }
+
+        Path path = pathOf(regionKey);
+        if (!create && !path.toFile().isFile()) {
+            return null;
+        }
+
+        try {
+            return regions.computeIfAbsent(regionKey, _ -> {
+                try {
+                    return new TileRegionFile(path);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (IllegalStateException e) {
+            LOGGER.atWarning().log("Failed to open tile region " + path + ": " + e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Flush on the background thread, once for all writes made until it runs.
+     */
+    private void scheduleFlush() {
+        if (flushPending.compareAndSet(false, true)) {
+            try {
+                compactor.execute(() -> {
+                    flushPending.set(false);
+                    flush();
+                });
+            } catch (RuntimeException e) {
+                // Shutting down
+                flushPending.set(false);
+            }
+        }
+    }
+
+    private void scheduleCompaction(RegionKey regionKey, TileRegionFile region) {
+        long garbage = region.getGarbageBytes();
+        if (garbage < MIN_COMPACTION_GARBAGE || garbage < region.getFileSize() * compactionThreshold) {
+            return;
+        }
+
+        AtomicBoolean flag = compacting.computeIfAbsent(regionKey, _ -> new AtomicBoolean());
+        if (flag.compareAndSet(false, true)) {
+            try {
+                compactor.execute(() -> {
+                    try {
+                        compact(regionKey, region);
+                    } finally {
+                        flag.set(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Shutting down
+                flag.set(false);
+            }
+        }
+    }
+
+    private void compact(RegionKey regionKey, TileRegionFile region) {
+        try {
+            region.compact();
+        } catch (IOException e) {
+            LOGGER.atWarning().log("Failed to compact tile region " + pathOf(regionKey) + ": " + e.getMessage());
+        }
+    }
+
+    private Path pathOf(RegionKey key) {
+        return root.resolve(sanitize(key.worldName()))
+            .resolve("s" + key.tileSizeChunks() + "_z" + key.zoom())
+            .resolve("r." + key.regionX() + "." + key.regionZ() + ".tiles");
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+
+    private static RegionKey regionKey(TileKey key) {
+        return new RegionKey(
+            key.worldName(),
+            key.tileSizeChunks(),
+            key.zoom(),
+            Math.floorDiv(key.tile().x(), TileRegionFile.REGION_SIZE),
+            Math.floorDiv(key.tile().z(), TileRegionFile.REGION_SIZE)
+        );
+    }
+
+    private static int localIndex(TileKey key) {
+        return TileRegionFile.indexOf(
+            Math.floorMod(key.tile().x(), TileRegionFile.REGION_SIZE),
+            Math.floorMod(key.tile().z(), TileRegionFile.REGION_SIZE)
+        );
+    }
+
+    private record RegionKey(String worldName, int tileSizeChunks, int zoom, int regionX, int regionZ) {
+    }
+}
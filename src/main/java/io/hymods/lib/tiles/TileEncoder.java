@@ -0,0 +1,394 @@
+package io.hymods.lib.tiles;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+/**
+ * Compresses tile images before they are sent, instead of sending every
+ * changed slot as a full image.
+ *
+ * Colors are reduced to a palette of at most {@link #MAX_PALETTE_SIZE} colors.
+ * Tiles with more colors are quantized by dropping low bits of each channel
+ * until they fit, each palette entry being the average of the colors it
+ * replaces. Pixels are then stored as runs of palette indices.
+ *
+ * When the receiver already holds a previous version of the tile, only the
+ * pixels that differ from it are stored, as runs of changed pixels between
+ * skipped ones. If most of the tile changed, a key frame is sent instead.
+ *
+ * Payload layout (varints are unsigned LEB128):
+ * <pre>
+ * key frame:   byte 0, varint palette size, palette ARGB ints (big-endian),
+ *              then (varint length, byte index) runs covering the tile
+ * delta frame: byte 1, varint palette size, ARGB ints (big-endian) of the
+ *              palette colors the changed pixels use,
+ *              then (varint skipped, varint length, byte index) runs
+ * </pre>
+ *
+ * Usage:
+ * <pre>
+ * TileEncoder encoder = new TileEncoder();
+ *
+ * // When a slot's tile is ready
+ * EncodedTile frame = encoder.encode(image, version, shown, shownVersion);
+ * shown = TileEncoder.decode(frame, shown);
+ * send(slot, frame);
+ * </pre>
+ *
+ * Encoders hold no per-tile state and are thread-safe.
+ */
+public class TileEncoder {
+    public static final int MAX_PALETTE_SIZE = 256;
+
+    private static final byte KEY_FRAME = 0;
+    private static final byte DELTA_FRAME = 1;
+
+    // Above this fraction of changed pixels a key frame is sent instead of a delta
+    private static final double MAX_DELTA_FRACTION = 0.5;
+
+    private final AtomicLong keyFrames = new AtomicLong();
+    private final AtomicLong deltaFrames = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong encodedBytes = new AtomicLong();
+    private final AtomicLong encodeNanos = new AtomicLong();
+
+    /**
+     * Encode a tile as a key frame.
+     *
+     * @param image The tile image
+     * @param version Version of the tile
+     * @return The encoded tile
+     */
+    public EncodedTile encode(TileImage image, int version) {
+        return encode(image, version, null, -1);
+    }
+
+    /**
+     * Encode a tile, as a delta against the version the receiver holds if
+     * that is smaller. Falls back to a key frame if it is not, or if the
+     * receiver holds no tile or one of another size.
+     *
+     * Since encoding may be lossy, {@code previous} must be what the receiver
+     * decoded, not the image the previous frame was encoded from.
+     *
+     * @param image The tile image
+     * @param version Version of the tile
+     * @param previous The image the receiver currently shows (can be null)
+     * @param previousVersion Version of {@code previous}
+     * @return The encoded tile
+     */
+    public EncodedTile encode(TileImage image, int version, @NullableDecl TileImage previous, int previousVersion) {
+        long start = System.nanoTime();
+
+        int[] argb = image.argb();
+        int[] indices = new int[argb.length];
+        int[] palette = quantize(argb, indices);
+
+        EncodedTile encoded = null;
+        if (previous != null && previousVersion < version
+                && previous.width() == image.width() && previous.height() == image.height()) {
+            encoded = encodeDelta(image, version, previous, previousVersion, palette, indices);
+        }
+        if (encoded == null) {
+            encoded = encodeKeyFrame(image, version, palette, indices);
+        }
+
+        encodeNanos.addAndGet(System.nanoTime() - start);
+        (encoded.isDelta() ? deltaFrames : keyFrames).incrementAndGet();
+        rawBytes.addAndGet(encoded.rawSize());
+        encodedBytes.addAndGet(encoded.size());
+        return encoded;
+    }
+
+    private static EncodedTile encodeKeyFrame(TileImage image, int version, int[] palette, int[] indices) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(palette.length * 4 + indices.length / 4 + 16);
+        out.write(KEY_FRAME);
+        writePalette(out, palette);
+
+        int i = 0;
+        while (i < indices.length) {
+            int index = indices[i];
+            int end = i + 1;
+            while (end < indices.length && indices[end] == index) {
+                end++;
+            }
+            writeVarInt(out, end - i);
+            out.write(index);
+            i = end;
+        }
+
+        return new EncodedTile(image.tile(), image.width(), image.height(), version, -1, out.toByteArray());
+    }
+
+    /**
+     * @return The delta frame, or null if too much of the tile changed
+     */
+    private static EncodedTile encodeDelta(TileImage image, int version, TileImage previous, int previousVersion, int[] palette, int[] indices) {
+        int[] shown = previous.argb();
+        int maxChanged = (int) (indices.length * MAX_DELTA_FRACTION);
+        int changed = 0;
+
+        // Only the colors of changed pixels are sent, renumbered in order of use
+        int[] deltaIndices = new int[palette.length];
+        int deltaPaletteSize = 0;
+        for (int i = 0; i < indices.length; i++) {
+            if (palette[indices[i]] == shown[i]) {
+                continue;
+            }
+            if (++changed > maxChanged) {
+                return null;
+            }
+            if (deltaIndices[indices[i]] == 0) {
+                deltaIndices[indices[i]] = ++deltaPaletteSize;
+            }
+        }
+
+        int[] deltaPalette = new int[deltaPaletteSize];
+        for (int index = 0; index < palette.length; index++) {
+            if (deltaIndices[index] > 0) {
+                deltaPalette[--deltaIndices[index]] = palette[index];
+            } else {
+                deltaIndices[index] = -1;
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(deltaPalette.length * 4 + changed * 3 + 16);
+        out.write(DELTA_FRAME);
+        writePalette(out, deltaPalette);
+
+        int i = 0;
+        while (i < indices.length) {
+            int skipStart = i;
+            while (i < indices.length && palette[indices[i]] == shown[i]) {
+                i++;
+            }
+            if (i == indices.length) {
+                break;
+            }
+
+            int index = indices[i];
+            int end = i + 1;
+            while (end < indices.length && indices[end] == index && palette[index] != shown[end]) {
+                end++;
+            }
+            writeVarInt(out, i - skipStart);
+            writeVarInt(out, end - i);
+            out.write(deltaIndices[index]);
+            i = end;
+        }
+
+        return new EncodedTile(image.tile(), image.width(), image.height(), version, previousVersion, out.toByteArray());
+    }
+
+    /**
+     * Reduce an image to at most {@link #MAX_PALETTE_SIZE} colors.
+     *
+     * @param argb Pixel colors
+     * @param indices Receives the palette index of each pixel
+     * @return The palette
+     */
+    private static int[] quantize(int[] argb, int[] indices) {
+        Int2IntOpenHashMap buckets = new Int2IntOpenHashMap(MAX_PALETTE_SIZE * 2);
+        buckets.defaultReturnValue(-1);
+        long[] sums = new long[MAX_PALETTE_SIZE * 4];
+        int[] counts = new int[MAX_PALETTE_SIZE];
+
+        for (int dropBits = 0; dropBits < 8; dropBits++) {
+            int channelMask = (0xFF << dropBits) & 0xFF;
+            int mask = (channelMask << 24) | (channelMask << 16) | (channelMask << 8) | channelMask;
+            buckets.clear();
+
+            boolean fits = true;
+            for (int i = 0; i < argb.length; i++) {
+                int bucket = argb[i] & mask;
+                int index = buckets.get(bucket);
+                if (index < 0) {
+                    if (buckets.size() == MAX_PALETTE_SIZE) {
+                        fits = false;
+                        break;
+                    }
+                    index = buckets.size();
+                    buckets.put(bucket, index);
+                }
+                indices[i] = index;
+            }
+            if (!fits) {
+                continue;
+            }
+
+            if (dropBits == 0) {
+                // Every color fits, the palette is exact
+                int[] palette = new int[buckets.size()];
+                for (int i = 0; i < argb.length; i++) {
+                    palette[indices[i]] = argb[i];
+                }
+                return palette;
+            }
+            return averagePalette(argb, indices, buckets.size(), sums, counts);
+        }
+
+        // Unreachable: with 7 bits dropped each channel has 2 values, 16 colors in total
+        throw new IllegalStateException("Failed to quantize tile");
+    }
+
+    private static int[] averagePalette(int[] argb, int[] indices, int size, long[] sums, int[] counts) {
+        for (int i = 0; i < argb.length; i++) {
+            int color = argb[i];
+            int base = indices[i] * 4;
+            sums[base] += color >>> 24;
+            sums[base + 1] += (color >> 16) & 0xFF;
+            sums[base + 2] += (color >> 8) & 0xFF;
+            sums[base + 3] += color & 0xFF;
+            counts[indices[i]]++;
+        }
+
+        int[] palette = new int[size];
+        for (int index = 0; index < size; index++) {
+            int count = counts[index];
+            int base = index * 4;
+            palette[index] = (int) (sums[base] / count) << 24
+                | (int) (sums[base + 1] / count) << 16
+                | (int) (sums[base + 2] / count) << 8
+                | (int) (sums[base + 3] / count);
+        }
+        return palette;
+    }
+
+    /**
+     * Decode a tile.
+     *
+     * @param encoded The encoded tile
+     * @param previous The image the delta applies to, ignored for key frames
+     * @return The decoded image
+     * @throws IllegalArgumentException if a delta has no matching previous image, or the payload is malformed
+     */
+    public static TileImage decode(EncodedTile encoded, @NullableDecl TileImage previous) {
+        int pixelCount = encoded.width() * encoded.height();
+        byte[] data = encoded.data();
+        int[] position = {0};
+
+        boolean delta = read(data, position) == DELTA_FRAME;
+        if (delta != encoded.isDelta()) {
+            throw new IllegalArgumentException("Frame type does not match for tile " + encoded.tile());
+        }
+
+        int[] argb;
+        if (delta) {
+            if (previous == null || previous.argb().length != pixelCount) {
+                throw new IllegalArgumentException("Delta for tile " + encoded.tile() + " needs version " + encoded.baseVersion());
+            }
+            argb = previous.argb().clone();
+        } else {
+            argb = new int[pixelCount];
+        }
+
+        int[] palette = new int[readVarInt(data, position)];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = read(data, position) << 24 | read(data, position) << 16 | read(data, position) << 8 | read(data, position);
+        }
+
+        int pixel = 0;
+        while (position[0] < data.length) {
+            if (delta) {
+                pixel += readVarInt(data, position);
+            }
+            int length = readVarInt(data, position);
+            int index = read(data, position);
+            if (index >= palette.length || pixel + length > pixelCount) {
+                throw new IllegalArgumentException("Malformed frame for tile " + encoded.tile());
+            }
+            int color = palette[index];
+            for (int end = pixel + length; pixel < end; pixel++) {
+                argb[pixel] = color;
+            }
+        }
+
+        return new TileImage(encoded.tile(), encoded.width(), encoded.height(), argb);
+    }
+
+    /**
+     * Get the encoder counters.
+     */
+    public Stats getStats() {
+        return new Stats(keyFrames.get(), deltaFrames.get(), rawBytes.get(), encodedBytes.get(), encodeNanos.get());
+    }
+
+    /**
+     * Reset the encoder counters.
+     */
+    public void resetStats() {
+        keyFrames.set(0);
+        deltaFrames.set(0);
+        rawBytes.set(0);
+        encodedBytes.set(0);
+        encodeNanos.set(0);
+    }
+
+    private static void writePalette(ByteArrayOutputStream out, int[] palette) {
+        writeVarInt(out, palette.length);
+        for (int color : palette) {
+            out.write(color >>> 24);
+            out.write(color >>> 16);
+            out.write(color >>> 8);
+            out.write(color);
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int read(byte[] data, int[] position) {
+        if (position[0] >= data.length) {
+            throw new IllegalArgumentException("Truncated tile frame");
+        }
+        return data[position[0]++] & 0xFF;
+    }
+
+    private static int readVarInt(byte[] data, int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = read(data, position);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in tile frame");
+    }
+
+    /**
+     * Encoder counters, to compare encoded size and time across tile sizes.
+     *
+     * @param keyFrames Number of tiles encoded as key frames
+     * @param deltaFrames Number of tiles encoded as deltas
+     * @param rawBytes Size the tiles would have had as raw ARGB
+     * @param encodedBytes Size of the encoded payloads
+     * @param encodeNanos Time spent encoding
+     */
+    public record Stats(long keyFrames, long deltaFrames, long rawBytes, long encodedBytes, long encodeNanos) {
+
+        /**
+         * Get the encoded size as a fraction of the raw size.
+         */
+        public double compressionRatio() {
+            return rawBytes > 0 ? (double) encodedBytes / rawBytes : 0;
+        }
+
+        /**
+         * Get the average time to encode a tile, in microseconds.
+         */
+        public double averageEncodeMicros() {
+            long frames = keyFrames + deltaFrames;
+            return frames > 0 ? encodeNanos / 1000.0 / frames : 0;
+        }
+    }
+}
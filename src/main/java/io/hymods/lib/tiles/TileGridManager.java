@@ -1,157 +1,237 @@
 package io.hymods.lib.tiles;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
- * Manages a 3x3 grid of map tiles with wrapping support.
+ * Manages an NxN grid of map tiles with wrapping support.
  * 
- * The grid uses 9 "slots" (indices 0-8) which map to asset paths Map0.png through Map8.png.
- * Each slot can hold a tile from any world position. When the player moves, slots are
- * reassigned to new world positions, reusing slots that would otherwise go off-screen.
+ * The grid uses N*N "slots" which map to asset paths Map0.png, Map1.png, and so on.
+ * Slots are addressed toroidally: a tile always lives in the slot
+ * {@code floorMod(z, N) * N + floorMod(x, N)}. Since the grid covers N consecutive
+ * tiles on each axis, every tile around the center has its own slot, and when the
+ * player moves, the tiles that scroll in land exactly in the slots of the tiles
+ * that scrolled out.
  * 
- * Grid layout (slot indices):
- *   0 | 1 | 2
- *   ---------
- *   3 | 4 | 5
- *   ---------
- *   6 | 7 | 8
+ * Moving the center by (dx, dz) therefore only touches the |dx| new columns and
+ * |dz| new rows, without searching for free slots.
  * 
- * Slot 4 is always the "center" slot where the player currently is.
+ * The default grid is 3x3; larger maps can use 5x5, 7x7, etc.
  */
 public class TileGridManager {
-    public static final int GRID_SIZE = 3;
-    public static final int TOTAL_SLOTS = GRID_SIZE * GRID_SIZE;
+    private static final int DEFAULT_GRID_SIZE = 3;
+    
+    /**
+     * @deprecated only the default grid size, use {@link #getGridSize()}
+     */
+    @Deprecated
+    public static final int GRID_SIZE = DEFAULT_GRID_SIZE;
+    /**
+     * @deprecated only the slot count of the default grid size, use {@link #getTotalSlots()}
+     */
+    @Deprecated
+    public static final int TOTAL_SLOTS = DEFAULT_GRID_SIZE * DEFAULT_GRID_SIZE;
+    /**
+     * @deprecated the center slot moves with the center tile, use {@link #getCenterSlot()}
+     */
+    @Deprecated
     public static final int CENTER_SLOT = 4;
     
+    /**
+     * Fractional bits of the offsets written by
+     * {@link #calculateSlotOffsetsFixed(double, double, int, int[])}.
+     */
+    public static final int SUBPIXEL_BITS = 8;
+    
+    // Fractional bits of the player's position and of the pixels per block scale
+    private static final int BLOCK_FRACTION_BITS = 16;
+    private static final int SCALE_FRACTION_BITS = 16;
+    
     // Size of each tile in chunks
     private final int tileSizeChunks;
+    private final int tileSizeBlocks;
+    
+    // Number of tiles on each side of the grid, and tiles on each side of the center
+    private final int gridSize;
+    private final int totalSlots;
+    private final int radius;
     
     // Size of each tile in pixels (computed from generation)
     private int tilePixelSize = 0;
     
-    // Maps slot index (0-8) to the world tile coordinate it currently holds
-    private final TileCoord[] slotTiles = new TileCoord[TOTAL_SLOTS];
+    // Tile pixel size and pixels per block in fixed point, precomputed for slot offsets
+    private long tilePixelSizeFixed = 0;
+    private long pixelsPerBlockFixed = 0;
+    
+    // Maps slot index to the world tile coordinate it currently holds
+    private final TileCoord[] slotTiles;
     
     // The current center tile in world coordinates (where the player is)
     private TileCoord centerTile = null;
     
     // Track which slots have been initialized with image data
-    private final boolean[] slotInitialized = new boolean[TOTAL_SLOTS];
+    private final boolean[] slotInitialized;
     
     public TileGridManager(int tileSizeChunks) {
+        this(tileSizeChunks, DEFAULT_GRID_SIZE);
+    }
+    
+    /**
+     * @param tileSizeChunks Size of each tile in chunks
+     * @param gridSize Number of tiles on each side of the grid, must be odd
+     */
+    public TileGridManager(int tileSizeChunks, int gridSize) {
+        if (gridSize < 1 || gridSize % 2 == 0) {
+            throw new IllegalArgumentException("Grid size must be a positive odd number: " + gridSize);
+        }
+        
         this.tileSizeChunks = tileSizeChunks;
+        this.tileSizeBlocks = tileSizeChunks * TileCoord.BLOCKS_PER_CHUNK;
+        this.gridSize = gridSize;
+        this.totalSlots = gridSize * gridSize;
+        this.radius = gridSize / 2;
+        this.slotTiles = new TileCoord[totalSlots];
+        this.slotInitialized = new boolean[totalSlots];
     }
     
     /**
      * Initialize or update the grid centered on a new tile.
      * Returns information about which tiles need to be generated.
      * 
+     * Tiles that stay in the grid keep their slot; tiles still being generated
+     * are not requested again.
+     * 
      * @param newCenter The new center tile coordinate
      * @return Result containing tiles to generate and slot assignments
      */
     public GridUpdateResult updateCenter(TileCoord newCenter) {
-        if (centerTile == null) {
-            // First initialization - assign all slots
-            return initializeGrid(newCenter);
-        }
-        
-        if (newCenter.equals(centerTile)) {
+        if (!needsUpdate(newCenter)) {
             // No change needed
             return new GridUpdateResult(List.of(), Map.of());
         }
         
-        // Calculate which tiles we need in the new configuration
-        Set<TileCoord> neededTiles = getTilesAroundCenter(newCenter);
+        List<TileCoord> tilesToGenerate = new ArrayList<>(newTileCount(newCenter));
+        Map<TileCoord, Integer> assignments = new HashMap<>();
+        updateCenter(newCenter, (tile, slot) -> {
+            tilesToGenerate.add(tile);
+            assignments.put(tile, slot);
+        });
         
-        // Find which tiles we already have and can reuse
-        Map<TileCoord, Integer> existingTileSlots = new HashMap<>();
-        for (int slot = 0; slot < TOTAL_SLOTS; slot++) {
-            if (slotTiles[slot] != null && slotInitialized[slot]) {
-                existingTileSlots.put(slotTiles[slot], slot);
-            }
+        return new GridUpdateResult(tilesToGenerate, assignments);
+    }
+    
+    /**
+     * Initialize or update the grid centered on a new tile, reporting each tile
+     * to generate to a callback instead of building a result.
+     * 
+     * @param newCenter The new center tile coordinate
+     * @param consumer Receives each tile to generate with its slot
+     * @return The number of tiles to generate
+     */
+    public int updateCenter(TileCoord newCenter, SlotAssignmentConsumer consumer) {
+        if (!needsUpdate(newCenter)) {
+            return 0;
         }
         
-        // Determine which tiles to generate (needed but not existing)
-        Set<TileCoord> tilesToGenerate = new HashSet<>(neededTiles);
-        tilesToGenerate.removeAll(existingTileSlots.keySet());
+        TileCoord oldCenter = centerTile;
+        this.centerTile = newCenter;
         
-        // Find available slots (those holding tiles we no longer need)
-        List<Integer> availableSlots = new ArrayList<>();
-        for (int slot = 0; slot < TOTAL_SLOTS; slot++) {
-            TileCoord currentTile = slotTiles[slot];
-            if (currentTile == null || !neededTiles.contains(currentTile)) {
-                availableSlots.add(slot);
-            }
+        if (oldCenter == null
+                || Math.abs(newCenter.x() - oldCenter.x()) >= gridSize
+                || Math.abs(newCenter.z() - oldCenter.z()) >= gridSize) {
+            // First initialization or a jump past the whole grid - assign all slots
+            return assignRange(newCenter.x() - radius, newCenter.x() + radius,
+                    newCenter.z() - radius, newCenter.z() + radius, consumer);
         }
         
-        // Assign new tiles to available slots
-        Map<TileCoord, Integer> newAssignments = new HashMap<>();
-        var tilesToGenerateList = new ArrayList<>(tilesToGenerate);
-        for (int i = 0; i < tilesToGenerateList.size(); i++) {
-            TileCoord tile = tilesToGenerateList.get(i);
-            int slot = availableSlots.get(i);
-            newAssignments.put(tile, slot);
-            slotTiles[slot] = tile;
-            slotInitialized[slot] = false; // Will be initialized after generation
-        }
+        int dx = newCenter.x() - oldCenter.x();
+        int dz = newCenter.z() - oldCenter.z();
+        int minX = newCenter.x() - radius;
+        int maxX = newCenter.x() + radius;
+        int minZ = newCenter.z() - radius;
+        int maxZ = newCenter.z() + radius;
         
-        // Update center
-        this.centerTile = newCenter;
+        // Columns that scrolled in, over the full height of the new grid
+        int newMinX = dx > 0 ? maxX - dx + 1 : minX;
+        int newMaxX = dx > 0 ? maxX : minX - dx - 1;
+        int count = dx != 0 ? assignRange(newMinX, newMaxX, minZ, maxZ, consumer) : 0;
+        
+        // Rows that scrolled in, excluding the new columns
+        if (dz != 0) {
+            int rowMinX = dx > 0 ? minX : newMaxX + 1;
+            int rowMaxX = dx > 0 ? newMinX - 1 : maxX;
+            int newMinZ = dz > 0 ? maxZ - dz + 1 : minZ;
+            int newMaxZ = dz > 0 ? maxZ : minZ - dz - 1;
+            count += assignRange(rowMinX, rowMaxX, newMinZ, newMaxZ, consumer);
+        }
         
-        return new GridUpdateResult(tilesToGenerateList, newAssignments);
+        return count;
+    }
+    
+    private boolean needsUpdate(TileCoord newCenter) {
+        return centerTile == null || !newCenter.equals(centerTile);
     }
     
     /**
-     * Initialize the grid with all 9 tiles around a center.
+     * Number of tiles that moving to a new center brings into the grid.
      */
-    private GridUpdateResult initializeGrid(TileCoord center) {
-        this.centerTile = center;
-        
-        List<TileCoord> tilesToGenerate = new ArrayList<>();
-        Map<TileCoord, Integer> assignments = new HashMap<>();
-        
-        int slot = 0;
-        for (int dz = -1; dz <= 1; dz++) {
-            for (int dx = -1; dx <= 1; dx++) {
-                TileCoord tile = center.add(dx, dz);
-                slotTiles[slot] = tile;
-                slotInitialized[slot] = false;
-                tilesToGenerate.add(tile);
-                assignments.put(tile, slot);
-                slot++;
-            }
+    private int newTileCount(TileCoord newCenter) {
+        if (centerTile == null) {
+            return totalSlots;
         }
-        
-        return new GridUpdateResult(tilesToGenerate, assignments);
+        int dx = Math.min(Math.abs(newCenter.x() - centerTile.x()), gridSize);
+        int dz = Math.min(Math.abs(newCenter.z() - centerTile.z()), gridSize);
+        return totalSlots - (gridSize - dx) * (gridSize - dz);
     }
     
     /**
-     * Get the set of tiles needed around a center tile.
+     * Assign every tile in an inclusive range to its slot, row by row.
      */
-    private Set<TileCoord> getTilesAroundCenter(TileCoord center) {
-        Set<TileCoord> tiles = new HashSet<>();
-        for (int dz = -1; dz <= 1; dz++) {
-            for (int dx = -1; dx <= 1; dx++) {
-                tiles.add(center.add(dx, dz));
+    private int assignRange(int minX, int maxX, int minZ, int maxZ, SlotAssignmentConsumer consumer) {
+        int count = 0;
+        for (int z = minZ; z <= maxZ; z++) {
+            for (int x = minX; x <= maxX; x++) {
+                TileCoord tile = new TileCoord(x, z);
+                int slot = slotOf(x, z);
+                slotTiles[slot] = tile;
+                slotInitialized[slot] = false; // Will be initialized after generation
+                consumer.accept(tile, slot);
+                count++;
             }
         }
-        return tiles;
+        return count;
+    }
+    
+    /**
+     * Get the slot a tile coordinate maps to, whether or not the grid holds it.
+     * 
+     * @param tileX Tile X coordinate
+     * @param tileZ Tile Z coordinate
+     * @return The slot index
+     */
+    public int slotOf(int tileX, int tileZ) {
+        return Math.floorMod(tileZ, gridSize) * gridSize + Math.floorMod(tileX, gridSize);
     }
     
     /**
      * Mark a slot as initialized (has valid image data).
      */
     public void markSlotInitialized(int slot) {
-        if (slot >= 0 && slot < TOTAL_SLOTS) {
+        if (slot >= 0 && slot < totalSlots) {
             slotInitialized[slot] = true;
         }
     }
     
+    /**
+     * Check if a slot has valid image data.
+     */
+    public boolean isSlotInitialized(int slot) {
+        return slot >= 0 && slot < totalSlots && slotInitialized[slot];
+    }
+    
     /**
      * Check if the grid has been initialized.
      */
@@ -166,6 +246,27 @@ public class TileGridManager {
         return centerTile;
     }
     
+    /**
+     * Get the slot holding the center tile, or -1 if the grid is not initialized.
+     */
+    public int getCenterSlot() {
+        return centerTile != null ? slotOf(centerTile.x(), centerTile.z()) : -1;
+    }
+    
+    /**
+     * Get the number of tiles on each side of the grid.
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+    
+    /**
+     * Get the total number of slots in the grid.
+     */
+    public int getTotalSlots() {
+        return totalSlots;
+    }
+    
     /**
      * Get the tile coordinate for a specific slot.
      */
@@ -180,12 +281,8 @@ public class TileGridManager {
      * @return The slot index, or -1 if not found
      */
     public int findSlotForTile(TileCoord tile) {
-        for (int slot = 0; slot < TOTAL_SLOTS; slot++) {
-            if (tile.equals(slotTiles[slot])) {
-                return slot;
-            }
-        }
-        return -1;
+        int slot = slotOf(tile.x(), tile.z());
+        return tile.equals(slotTiles[slot]) ? slot : -1;
     }
     
     /**
@@ -195,50 +292,115 @@ public class TileGridManager {
      * 1. The tile's world position relative to the center tile
      * 2. The player's position within the current tile
      * 
-     * @param slot The slot index (0-8)
+     * Prefer {@link #calculateSlotOffsets(double, double, int, int[])} when
+     * positioning every slot, which computes the player's position once.
+     * 
+     * @param slot The slot index
      * @param playerBlockX Player's X position in blocks
      * @param playerBlockZ Player's Z position in blocks
      * @param viewportSize Size of the viewport in pixels
      * @return int[2] containing {offsetX, offsetZ} in pixels
      */
     public int[] calculateSlotOffset(int slot, double playerBlockX, double playerBlockZ, int viewportSize) {
-        if (centerTile == null || tilePixelSize == 0) {
-            return new int[]{0, 0};
-        }
-        
         TileCoord slotTile = slotTiles[slot];
-        if (slotTile == null) {
+        if (centerTile == null || tilePixelSize == 0 || slotTile == null) {
             return new int[]{0, 0};
         }
         
-        int tileSizeBlocks = tileSizeChunks * TileCoord.BLOCKS_PER_CHUNK;
-        double pixelsPerBlock = (double) tilePixelSize / tileSizeBlocks;
-        
-        // Calculate tile's position relative to center tile (in tiles)
-        int tileOffsetX = slotTile.x() - centerTile.x();
-        int tileOffsetZ = slotTile.z() - centerTile.z();
-        
-        // Convert to pixel offset (tile grid position)
-        int baseTilePixelX = tileOffsetX * tilePixelSize;
-        int baseTilePixelZ = tileOffsetZ * tilePixelSize;
-        
-        // Calculate player's offset within the center tile (in blocks from tile center)
-        double centerTileMinX = centerTile.minBlockX(tileSizeChunks);
-        double centerTileMinZ = centerTile.minBlockZ(tileSizeChunks);
-        double playerOffsetInTileX = playerBlockX - centerTileMinX;
-        double playerOffsetInTileZ = playerBlockZ - centerTileMinZ;
-        
-        // Convert player offset to pixels
-        int playerPixelOffsetX = (int) (playerOffsetInTileX * pixelsPerBlock);
-        int playerPixelOffsetZ = (int) (playerOffsetInTileZ * pixelsPerBlock);
-        
-        // Final offset: position tile, then shift everything to center player in viewport
-        // The tile's top-left corner needs to be positioned such that the player appears at viewport center
-        int viewportCenter = viewportSize / 2;
-        int offsetX = baseTilePixelX - playerPixelOffsetX + viewportCenter;
-        int offsetZ = baseTilePixelZ - playerPixelOffsetZ + viewportCenter;
+        long originX = viewportOriginX(playerBlockX, viewportSize);
+        long originZ = viewportOriginZ(playerBlockZ, viewportSize);
+        return new int[]{
+            toPixels(originX + (long) (slotTile.x() - centerTile.x()) * tilePixelSizeFixed),
+            toPixels(originZ + (long) (slotTile.z() - centerTile.z()) * tilePixelSizeFixed)
+        };
+    }
+    
+    /**
+     * Calculate the pixel offsets of all slots based on player position.
+     * 
+     * The player's position is converted once, and every tile is placed at a
+     * whole number of tiles from it, so tiles always line up with each other
+     * and are rounded to the nearest pixel the same way.
+     * 
+     * @param playerBlockX Player's X position in blocks
+     * @param playerBlockZ Player's Z position in blocks
+     * @param viewportSize Size of the viewport in pixels
+     * @param out Receives {offsetX, offsetZ} of slot {@code i} at {@code out[2 * i]} and
+     *            {@code out[2 * i + 1]}, must hold at least {@code 2 * getTotalSlots()} ints
+     * @return false if the grid or tile size is not initialized yet, in which case all offsets are 0
+     */
+    public boolean calculateSlotOffsets(double playerBlockX, double playerBlockZ, int viewportSize, int[] out) {
+        return calculateSlotOffsets(playerBlockX, playerBlockZ, viewportSize, out, false);
+    }
+    
+    /**
+     * Calculate the offsets of all slots in fixed point, with
+     * {@link #SUBPIXEL_BITS} fractional bits, for viewports that can position
+     * images with sub-pixel precision.
+     * 
+     * @param playerBlockX Player's X position in blocks
+     * @param playerBlockZ Player's Z position in blocks
+     * @param viewportSize Size of the viewport in pixels
+     * @param out Receives the offsets, laid out as in {@link #calculateSlotOffsets(double, double, int, int[])}
+     * @return false if the grid or tile size is not initialized yet, in which case all offsets are 0
+     */
+    public boolean calculateSlotOffsetsFixed(double playerBlockX, double playerBlockZ, int viewportSize, int[] out) {
+        return calculateSlotOffsets(playerBlockX, playerBlockZ, viewportSize, out, true);
+    }
+    
+    private boolean calculateSlotOffsets(double playerBlockX, double playerBlockZ, int viewportSize, int[] out, boolean fixed) {
+        if (out.length < totalSlots * 2) {
+            throw new IllegalArgumentException("Offset buffer needs " + totalSlots * 2 + " ints: " + out.length);
+        }
+        if (centerTile == null || tilePixelSize == 0) {
+            Arrays.fill(out, 0, totalSlots * 2, 0);
+            return false;
+        }
         
-        return new int[]{offsetX, offsetZ};
+        long originX = viewportOriginX(playerBlockX, viewportSize);
+        long originZ = viewportOriginZ(playerBlockZ, viewportSize);
+        int centerX = centerTile.x();
+        int centerZ = centerTile.z();
+        for (int slot = 0; slot < totalSlots; slot++) {
+            TileCoord slotTile = slotTiles[slot];
+            if (slotTile == null) {
+                out[slot * 2] = 0;
+                out[slot * 2 + 1] = 0;
+                continue;
+            }
+            long offsetX = originX + (long) (slotTile.x() - centerX) * tilePixelSizeFixed;
+            long offsetZ = originZ + (long) (slotTile.z() - centerZ) * tilePixelSizeFixed;
+            out[slot * 2] = fixed ? (int) offsetX : toPixels(offsetX);
+            out[slot * 2 + 1] = fixed ? (int) offsetZ : toPixels(offsetZ);
+        }
+        return true;
+    }
+    
+    /**
+     * Fixed point offset of the center tile's top-left corner that puts the
+     * player at the viewport center.
+     */
+    private long viewportOriginX(double playerBlockX, int viewportSize) {
+        return viewportOrigin(playerBlockX, centerTile.x(), viewportSize);
+    }
+    
+    private long viewportOriginZ(double playerBlockZ, int viewportSize) {
+        return viewportOrigin(playerBlockZ, centerTile.z(), viewportSize);
+    }
+    
+    private long viewportOrigin(double playerBlock, int centerTileCoord, int viewportSize) {
+        // Player's position within the center tile, in 1/2^BLOCK_FRACTION_BITS blocks
+        long playerOffset = (long) Math.floor(playerBlock * (1 << BLOCK_FRACTION_BITS))
+                - ((long) centerTileCoord * tileSizeBlocks << BLOCK_FRACTION_BITS);
+        long playerPixels = (playerOffset * pixelsPerBlockFixed) >> (BLOCK_FRACTION_BITS + SCALE_FRACTION_BITS - SUBPIXEL_BITS);
+        return ((long) (viewportSize / 2) << SUBPIXEL_BITS) - playerPixels;
+    }
+    
+    /**
+     * Round a fixed point offset to the nearest pixel.
+     */
+    private static int toPixels(long fixed) {
+        return (int) ((fixed + (1L << (SUBPIXEL_BITS - 1))) >> SUBPIXEL_BITS);
     }
     
     /**
@@ -246,6 +408,8 @@ public class TileGridManager {
      */
     public void setTilePixelSize(int size) {
         this.tilePixelSize = size;
+        this.tilePixelSizeFixed = (long) size << SUBPIXEL_BITS;
+        this.pixelsPerBlockFixed = ((long) size << SCALE_FRACTION_BITS) / tileSizeBlocks;
     }
     
     /**
@@ -262,6 +426,14 @@ public class TileGridManager {
         return tileSizeChunks;
     }
     
+    /**
+     * Receives tiles to generate from {@link #updateCenter(TileCoord, SlotAssignmentConsumer)}.
+     */
+    @FunctionalInterface
+    public interface SlotAssignmentConsumer {
+        void accept(TileCoord tile, int slot);
+    }
+    
     /**
      * Result of a grid update operation.
      * 
@@ -0,0 +1,21 @@
+package io.hymods.lib.tiles;
+
+/**
+ * Rendered pixels of a tile, or of a region within a tile.
+ * 
+ * Pixels are ARGB and indexed row by row: {@code index = y * width + x}.
+ * 
+ * @param tile The tile the pixels belong to
+ * @param width Width in pixels
+ * @param height Height in pixels
+ * @param argb Pixel colors
+ */
+public record TileImage(TileCoord tile, int width, int height, int[] argb) {
+    
+    /**
+     * Get the color of a pixel.
+     */
+    public int pixel(int x, int y) {
+        return argb[y * width + x];
+    }
+}
@@ -0,0 +1,26 @@
+package io.hymods.lib.tiles;
+
+/**
+ * Identifies a rendered tile across worlds, tile sizes and zoom levels.
+ * 
+ * @param worldName The name of the world
+ * @param tile The tile coordinate
+ * @param tileSizeChunks Size of the tile in chunks
+ * @param zoom Zoom level, 0 being one pixel per block
+ */
+public record TileKey(String worldName, TileCoord tile, int tileSizeChunks, int zoom) {
+    
+    /**
+     * Create a key for a full resolution tile.
+     */
+    public static TileKey of(String worldName, TileCoord tile, int tileSizeChunks) {
+        return new TileKey(worldName, tile, tileSizeChunks, 0);
+    }
+    
+    /**
+     * Check if this key belongs to the same world, tile size and zoom level.
+     */
+    public boolean isInLayer(String worldName, int tileSizeChunks, int zoom) {
+        return this.tileSizeChunks == tileSizeChunks && this.zoom == zoom && this.worldName.equals(worldName);
+    }
+}
@@ -0,0 +1,283 @@
+package io.hymods.lib.tiles;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+/**
+ * Predicts which tiles a player's grid will need next, so they can be rendered
+ * before the player crosses into a new tile.
+ *
+ * Positions fed to {@link #update(double, double, long)} are kept in a small
+ * history to estimate the player's velocity. The path is extrapolated over the
+ * lookahead window; every time it crosses a tile edge, the grid would scroll and
+ * need a new row or column of tiles. Those tiles are queued by the time at which
+ * they are expected to be needed, soonest first.
+ *
+ * Usage:
+ * <pre>
+ * TilePrefetcher prefetcher = new TilePrefetcher(tileSizeChunks, grid.getGridSize(), 3000);
+ *
+ * // Every tick, on the world thread
+ * prefetcher.update(position.getX(), position.getZ(), System.currentTimeMillis());
+ * renderService.prefetch(world, prefetcher, 2);
+ * </pre>
+ *
+ * A polled tile is only skipped by later plans once it is marked with
+ * {@link #markRequested(TileCoord)}, so tiles that could not be rendered yet
+ * are queued again. Not thread-safe; use it from the world thread.
+ */
+public class TilePrefetcher {
+    private static final int HISTORY_SIZE = 8;
+
+    // Velocity is estimated over at least this much history
+    private static final long VELOCITY_WINDOW_MILLIS = 500;
+
+    // Below this speed (blocks per second) the player is considered standing still
+    private static final double MIN_SPEED = 0.5;
+
+    private final int tileSizeChunks;
+    private final int tileSizeBlocks;
+    private final int radius;
+    private final long lookaheadMillis;
+
+    // Ring buffer of recent positions
+    private final double[] historyX = new double[HISTORY_SIZE];
+    private final double[] historyZ = new double[HISTORY_SIZE];
+    private final long[] historyTime = new long[HISTORY_SIZE];
+    private int historyHead = 0;
+    private int historyCount = 0;
+
+    private double velocityX = 0;
+    private double velocityZ = 0;
+    private TileCoord currentTile = null;
+
+    private final PriorityQueue<Prefetch> queue = new PriorityQueue<>(
+        Comparator.comparingLong(Prefetch::expectedAtMillis).thenComparingInt(Prefetch::order));
+    // Packed coordinates of tiles whose render was started
+    private final LongOpenHashSet requested = new LongOpenHashSet();
+
+    /**
+     * @param tileSizeChunks Size of each tile in chunks
+     * @param gridSize Number of tiles on each side of the player's grid
+     * @param lookaheadMillis How far ahead to predict tiles, in milliseconds
+     */
+    public TilePrefetcher(int tileSizeChunks, int gridSize, long lookaheadMillis) {
+        this.tileSizeChunks = tileSizeChunks;
+        this.tileSizeBlocks = tileSizeChunks * TileCoord.BLOCKS_PER_CHUNK;
+        this.radius = gridSize / 2;
+        this.lookaheadMillis = lookaheadMillis;
+    }
+
+    /**
+     * Record the player's position and re-plan the tiles to prefetch.
+     *
+     * @param blockX Player's X position in blocks
+     * @param blockZ Player's Z position in blocks
+     * @param nowMillis Current time in milliseconds
+     */
+    public void update(double blockX, double blockZ, long nowMillis) {
+        if (historyCount > 0) {
+            int newest = Math.floorMod(historyHead - 1, HISTORY_SIZE);
+            if (Math.abs(blockX - historyX[newest]) > tileSizeBlocks || Math.abs(blockZ - historyZ[newest]) > tileSizeBlocks) {
+                // Teleported, the old path says nothing about the new one
+                historyCount = 0;
+            }
+        }
+
+        historyX[historyHead] = blockX;
+        historyZ[historyHead] = blockZ;
+        historyTime[historyHead] = nowMillis;
+        historyHead = (historyHead + 1) % HISTORY_SIZE;
+        historyCount = Math.min(historyCount + 1, HISTORY_SIZE);
+
+        estimateVelocity();
+
+        TileCoord tile = TileCoord.fromBlock(blockX, blockZ, tileSizeChunks);
+        if (!tile.equals(currentTile)) {
+            currentTile = tile;
+            // Forget requests that are now far behind
+            int keep = radius + 2;
+            LongIterator iterator = requested.iterator();
+            while (iterator.hasNext()) {
+                long packed = iterator.nextLong();
+                if (Math.abs(TileCoord.unpackX(packed) - tile.x()) > keep
+                        || Math.abs(TileCoord.unpackZ(packed) - tile.z()) > keep) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        plan(blockX, blockZ, nowMillis);
+    }
+
+    private void estimateVelocity() {
+        velocityX = 0;
+        velocityZ = 0;
+        if (historyCount < 2) {
+            return;
+        }
+
+        int newest = Math.floorMod(historyHead - 1, HISTORY_SIZE);
+        int oldest = newest;
+        for (int i = 1; i < historyCount; i++) {
+            oldest = Math.floorMod(newest - i, HISTORY_SIZE);
+            if (historyTime[newest] - historyTime[oldest] >= VELOCITY_WINDOW_MILLIS) {
+                break;
+            }
+        }
+
+        long elapsed = historyTime[newest] - historyTime[oldest];
+        if (elapsed <= 0) {
+            return;
+        }
+        velocityX = (historyX[newest] - historyX[oldest]) * 1000.0 / elapsed;
+        velocityZ = (historyZ[newest] - historyZ[oldest]) * 1000.0 / elapsed;
+    }
+
+    /**
+     * Walk the extrapolated path tile edge by tile edge and queue the tiles each
+     * crossing brings into the grid.
+     */
+    private void plan(double blockX, double blockZ, long nowMillis) {
+        queue.clear();
+        if (Math.hypot(velocityX, velocityZ) < MIN_SPEED) {
+            return;
+        }
+
+        int stepX = velocityX > 0 ? 1 : velocityX < 0 ? -1 : 0;
+        int stepZ = velocityZ > 0 ? 1 : velocityZ < 0 ? -1 : 0;
+        int centerX = currentTile.x();
+        int centerZ = currentTile.z();
+        int order = 0;
+
+        // Bounded so a fast player with a long lookahead doesn't queue half the world
+        int maxCrossings = 2 * (2 * radius + 1);
+        for (int crossing = 0; crossing < maxCrossings; crossing++) {
+            double timeX = crossingTime(centerX, stepX, blockX, velocityX);
+            double timeZ = crossingTime(centerZ, stepZ, blockZ, velocityZ);
+            double time = Math.min(timeX, timeZ);
+            if (time * 1000.0 > lookaheadMillis) {
+                break;
+            }
+
+            long expectedAt = nowMillis + (long) (time * 1000.0);
+            if (timeX <= timeZ) {
+                centerX += stepX;
+                int columnX = centerX + stepX * radius;
+                for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                    order = enqueue(new TileCoord(columnX, z), expectedAt, order);
+                }
+            } else {
+                centerZ += stepZ;
+                int rowZ = centerZ + stepZ * radius;
+                for (int x = centerX - radius; x <= centerX + radius; x++) {
+                    order = enqueue(new TileCoord(x, rowZ), expectedAt, order);
+                }
+            }
+        }
+    }
+
+    /**
+     * Seconds until the player leaves tile {@code tile} along one axis.
+     */
+    private double crossingTime(int tile, int step, double position, double velocity) {
+        if (step == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double edge = (step > 0 ? tile + 1 : tile) * (double) tileSizeBlocks;
+        return Math.max(0, (edge - position) / velocity);
+    }
+
+    private int enqueue(TileCoord tile, long expectedAt, int order) {
+        if (!requested.contains(tile.pack())) {
+            queue.add(new Prefetch(tile, expectedAt, order));
+        }
+        return order + 1;
+    }
+
+    /**
+     * Take the next tile to prefetch, soonest needed first.
+     *
+     * @return The tile, or null if nothing needs to be prefetched
+     */
+    public Prefetch poll() {
+        Prefetch next;
+        while ((next = queue.poll()) != null) {
+            if (!requested.contains(next.tile().pack())) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stop planning a tile, e.g. once its render was started.
+     *
+     * @param tile The tile coordinate
+     */
+    public void markRequested(TileCoord tile) {
+        requested.add(tile.pack());
+    }
+
+    /**
+     * Plan a tile again, e.g. when its render completed without an image.
+     *
+     * @param tile The tile coordinate
+     */
+    public void clearRequested(TileCoord tile) {
+        requested.remove(tile.pack());
+    }
+
+    /**
+     * Get the number of tiles waiting to be prefetched.
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Get the estimated velocity along X, in blocks per second.
+     */
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    /**
+     * Get the estimated velocity along Z, in blocks per second.
+     */
+    public double getVelocityZ() {
+        return velocityZ;
+    }
+
+    /**
+     * Get the tile size in chunks.
+     */
+    public int getTileSizeChunks() {
+        return tileSizeChunks;
+    }
+
+    /**
+     * Forget the position history and queued tiles, e.g. after a teleport.
+     */
+    public void reset() {
+        historyCount = 0;
+        velocityX = 0;
+        velocityZ = 0;
+        currentTile = null;
+        queue.clear();
+        requested.clear();
+    }
+
+    /**
+     * A tile to prefetch.
+     *
+     * @param tile The tile coordinate
+     * @param expectedAtMillis When the grid is expected to need the tile
+     * @param order Tie-breaker keeping tiles of the same row in order
+     */
+    public record Prefetch(TileCoord tile, long expectedAtMillis, int order) {
+    }
+}
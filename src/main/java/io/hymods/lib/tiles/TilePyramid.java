@@ -0,0 +1,262 @@
+package io.hymods.lib.tiles;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+
+/**
+ * Zoomed-out map tiles built from the tiles of the level below.
+ *
+ * Zoom level 0 holds the tiles rendered from the world by a
+ * {@link TileRenderService}. A tile at zoom level {@code n} covers 2x2 tiles of
+ * level {@code n - 1} ({@link TileCoord#parent()}, {@link TileCoord#child(int, int)})
+ * and has the same pixel size: each of its quadrants is one child downsampled by
+ * averaging 2x2 pixels. Zoomed-out tiles never read chunks or render level 0
+ * tiles: they are only built when requested, on the render service's worker
+ * threads, from children that are cached or stored. A tile with any child not
+ * rendered yet is left unbuilt, so it is built in full once players have seen
+ * the whole area.
+ *
+ * Built tiles are kept in the render service's cache and disk store under their
+ * zoom level.
+ *
+ * Usage:
+ * <pre>
+ * TilePyramid pyramid = new TilePyramid(renderService, tileSizeChunks, 4);
+ *
+ * // On the world thread
+ * pyramid.get(world, TileCoord.fromBlock(x, z, tileSizeChunks).ancestor(3), 3)
+ *     .thenAccept(image -&gt; worldMap.show(image));
+ * </pre>
+ */
+public class TilePyramid {
+    private final TileRenderService renderService;
+    private final int tileSizeChunks;
+    private final int maxZoom;
+
+    // Zoomed-out tiles being built
+    private final Map<TileKey, CompletableFuture<TileImage>> building = new ConcurrentHashMap<>();
+
+    /**
+     * @param renderService Renders level 0 tiles and provides the cache and disk store
+     * @param tileSizeChunks Size of level 0 tiles in chunks
+     * @param maxZoom Highest zoom level that can be requested
+     */
+    public TilePyramid(TileRenderService renderService, int tileSizeChunks, int maxZoom) {
+        this.renderService = renderService;
+        this.tileSizeChunks = tileSizeChunks;
+        this.maxZoom = maxZoom;
+    }
+
+    /**
+     * Get a tile at a zoom level, building it and any missing zoomed-out tiles
+     * below it. Must be called on the world thread, since level 0 tiles are
+     * rendered when requested directly.
+     *
+     * @param world The world
+     * @param tile The tile coordinate at the given zoom level
+     * @param zoom The zoom level, 0 being one pixel per block
+     * @return The tile; completes with null if part of the area was never
+     *         rendered, or if the render queue is full
+     */
+    public CompletableFuture<TileImage> get(World world, TileCoord tile, int zoom) {
+        if (zoom < 0 || zoom > maxZoom) {
+            throw new IllegalArgumentException("Zoom level must be between 0 and " + maxZoom + ": " + zoom);
+        }
+        if (zoom == 0) {
+            return renderService.render(world, tile, tileSizeChunks);
+        }
+
+        TileKey key = new TileKey(world.getName(), tile, tileSizeChunks, zoom);
+        TileCache cache = renderService.getCache();
+        TileImage cached = cache != null ? cache.get(key) : null;
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        synchronized (building) {
+            CompletableFuture<TileImage> pending = building.get(key);
+            if (pending != null) {
+                return pending;
+            }
+
+            String worldName = world.getName();
+            CompletableFuture<TileImage> result = renderService.supplyAsync(() -> build(worldName, tile, zoom));
+            if (!result.isDone()) {
+                building.put(key, result);
+                result.whenComplete((_, _) -> building.remove(key, result));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Re-render the changed rectangles of level 0 tiles like
+     * {@link TileRenderService#renderDirty(World, TileDirtyTracker, int, TileRenderService.TileDeltaListener)},
+     * and drop the zoomed-out tiles covering each re-rendered tile so they are
+     * rebuilt on next use. Must be called on the world thread.
+     *
+     * @param world The world
+     * @param tracker The dirty tracker
+     * @param maxTiles Maximum number of tiles to re-render
+     * @param listener Called on the world thread with each re-rendered rectangle
+     * @return The number of tiles started
+     */
+    public int renderDirty(World world, TileDirtyTracker tracker, int maxTiles, TileRenderService.TileDeltaListener listener) {
+        return renderService.renderDirty(world, tracker, maxTiles, delta -> {
+            invalidateAncestors(delta.key().worldName(), delta.key().tile());
+            listener.onTileDelta(delta);
+        });
+    }
+
+    /**
+     * Drop the zoomed-out tiles covering a level 0 tile, e.g. after it was
+     * re-rendered, so they are rebuilt on next use.
+     *
+     * Cached tiles are dropped right away; stored tiles are deleted on a worker
+     * thread, unless its queue is full.
+     *
+     * @param worldName The name of the world
+     * @param tile The level 0 tile coordinate
+     */
+    public void invalidateAncestors(String worldName, TileCoord tile) {
+        TileCache cache = renderService.getCache();
+        TileKey[] keys = new TileKey[maxZoom];
+        for (int zoom = 1; zoom <= maxZoom; zoom++) {
+            keys[zoom - 1] = new TileKey(worldName, tile.ancestor(zoom), tileSizeChunks, zoom);
+            if (cache != null) {
+                cache.invalidate(keys[zoom - 1]);
+            }
+        }
+
+        TileDiskStore diskStore = renderService.getDiskStore();
+        if (diskStore != null) {
+            Runnable delete = () -> {
+                for (TileKey key : keys) {
+                    diskStore.delete(key);
+                }
+            };
+            if (!renderService.runAsync(delete)) {
+                // A stale stored tile would be served again, so don't skip it
+                delete.run();
+            }
+        }
+    }
+
+    /**
+     * Get the highest zoom level that can be requested.
+     */
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    /**
+     * Find or build a tile from the cached and stored tiles below it. Runs on a
+     * worker thread.
+     *
+     * @return The tile, or null if any level 0 tile it covers was never rendered
+     */
+    private TileImage build(String worldName, TileCoord tile, int zoom) {
+        TileKey key = new TileKey(worldName, tile, tileSizeChunks, zoom);
+        TileImage image = lookup(key);
+        if (image != null || zoom == 0) {
+            return image;
+        }
+
+        // Stop at the first missing child rather than visiting the whole area
+        TileImage northWest = build(worldName, tile.child(0, 0), zoom - 1);
+        TileImage northEast = northWest != null ? build(worldName, tile.child(1, 0), zoom - 1) : null;
+        TileImage southWest = northEast != null ? build(worldName, tile.child(0, 1), zoom - 1) : null;
+        TileImage southEast = southWest != null ? build(worldName, tile.child(1, 1), zoom - 1) : null;
+        if (southEast == null) {
+            return null;
+        }
+
+        image = combine(tile, northWest, northEast, southWest, southEast);
+        if (image != null) {
+            store(key, image);
+        }
+        return image;
+    }
+
+    private TileImage lookup(TileKey key) {
+        TileCache cache = renderService.getCache();
+        TileImage image = cache != null ? cache.get(key) : null;
+        if (image != null) {
+            return image;
+        }
+
+        TileDiskStore diskStore = renderService.getDiskStore();
+        StoredTile storedTile = diskStore != null ? diskStore.read(key) : null;
+        if (storedTile == null) {
+            return null;
+        }
+
+        image = storedTile.toImage();
+        if (cache != null) {
+            cache.put(key, image);
+        }
+        return image;
+    }
+
+    private void store(TileKey key, TileImage image) {
+        TileCache cache = renderService.getCache();
+        if (cache != null) {
+            cache.put(key, image);
+        }
+        TileDiskStore diskStore = renderService.getDiskStore();
+        if (diskStore != null) {
+            diskStore.write(key, image, null);
+        }
+    }
+
+    /**
+     * Downsample four children into one tile of the same size.
+     *
+     * @return The tile, or null if the children don't all have the same size
+     */
+    private static TileImage combine(TileCoord tile, TileImage northWest, TileImage northEast, TileImage southWest, TileImage southEast) {
+        int width = northWest.width();
+        int height = northWest.height();
+        if (!sameSize(northEast, width, height) || !sameSize(southWest, width, height) || !sameSize(southEast, width, height)) {
+            return null;
+        }
+
+        int[] argb = new int[width * height];
+        downsampleInto(northWest, argb, width, height, 0, 0);
+        downsampleInto(northEast, argb, width, height, width / 2, 0);
+        downsampleInto(southWest, argb, width, height, 0, height / 2);
+        downsampleInto(southEast, argb, width, height, width / 2, height / 2);
+        return new TileImage(tile, width, height, argb);
+    }
+
+    private static boolean sameSize(TileImage child, int width, int height) {
+        return child.width() == width && child.height() == height;
+    }
+
+    private static void downsampleInto(TileImage child, int[] target, int width, int height, int offsetX, int offsetY) {
+        int[] source = child.argb();
+        for (int y = 0; y < height / 2; y++) {
+            int row0 = (y * 2) * width;
+            int row1 = row0 + width;
+            for (int x = 0; x < width / 2; x++) {
+                int sx = x * 2;
+                target[(offsetY + y) * width + offsetX + x] = average(
+                    source[row0 + sx], source[row0 + sx + 1], source[row1 + sx], source[row1 + sx + 1]);
+            }
+        }
+    }
+
+    /**
+     * Average four ARGB colors channel by channel.
+     */
+    private static int average(int c0, int c1, int c2, int c3) {
+        int a = ((c0 >>> 24) + (c1 >>> 24) + (c2 >>> 24) + (c3 >>> 24)) >> 2;
+        int r = (((c0 >> 16) & 0xFF) + ((c1 >> 16) & 0xFF) + ((c2 >> 16) & 0xFF) + ((c3 >> 16) & 0xFF)) >> 2;
+        int g = (((c0 >> 8) & 0xFF) + ((c1 >> 8) & 0xFF) + ((c2 >> 8) & 0xFF) + ((c3 >> 8) & 0xFF)) >> 2;
+        int b = ((c0 & 0xFF) + (c1 & 0xFF) + (c2 & 0xFF) + (c3 & 0xFF)) >> 2;
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
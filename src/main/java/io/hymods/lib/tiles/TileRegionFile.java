@@ -0,0 +1,324 @@
+package io.hymods.lib.tiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A region file holding up to {@link #REGION_SIZE}x{@link #REGION_SIZE} tiles.
+ *
+ * Layout (little-endian):
+ * <pre>
+ * header:  int magic, int format version
+ * index:   one 24 byte entry per tile, row by row:
+ *          long offset, int length, int tile version, short width, short height, int flags
+ * data:    appended records: width*height ARGB ints, then width*height height ints if stored
+ * </pre>
+ *
+ * Records are only appended; rewriting a tile leaves its old record as garbage
+ * until the region is compacted. The data is written before the index entry
+ * pointing to it, but nothing is forced to disk until {@link #force()}, so a
+ * crash can lose or blank the tiles written since then. They are rendered
+ * again from the world.
+ *
+ * A thread interrupted during I/O closes the channel for everyone; the next
+ * call reopens it.
+ *
+ * Reads map only the record being read, so offsets are not limited to 2 GB.
+ * Mapped records stay valid after compaction: on systems that can't replace a
+ * file while it is mapped, compaction is given up and retried later.
+ */
+final class TileRegionFile {
+    static final int REGION_SIZE = 32;
+    static final int MAGIC = 0x484D544C; // "HMTL"
+    static final int FORMAT_VERSION = 1;
+
+    private static final int TILES = REGION_SIZE * REGION_SIZE;
+    private static final int ENTRY_BYTES = 24;
+    private static final int HEADER_BYTES = 8 + TILES * ENTRY_BYTES;
+    private static final int FLAG_HEIGHTS = 1;
+
+    private final Path path;
+    private FileChannel channel;
+
+    private final long[] offsets = new long[TILES];
+    private final int[] lengths = new int[TILES];
+    private final int[] versions = new int[TILES];
+    private final int[] widths = new int[TILES];
+    private final int[] heights = new int[TILES];
+    private final int[] flags = new int[TILES];
+
+    private long fileSize;
+    private long garbageBytes;
+    private boolean dirty;
+    private boolean closed;
+
+    TileRegionFile(Path path) throws IOException {
+        this.path = path;
+        open();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        if (!channel.isOpen()) {
+            open();
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(path.getParent());
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        fileSize = channel.size();
+
+        if (fileSize < HEADER_BYTES || !readHeader()) {
+            // New, truncated or incompatible file - start over
+            channel.truncate(0);
+            writeEmptyHeader();
+            fileSize = HEADER_BYTES;
+        }
+
+        long live = 0;
+        for (int i = 0; i < TILES; i++) {
+            live += lengths[i];
+        }
+        garbageBytes = fileSize - HEADER_BYTES - live;
+    }
+
+    private boolean readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                return false;
+            }
+        }
+        header.flip();
+
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            return false;
+        }
+
+        for (int i = 0; i < TILES; i++) {
+            offsets[i] = header.getLong();
+            lengths[i] = header.getInt();
+            versions[i] = header.getInt();
+            widths[i] = Short.toUnsignedInt(header.getShort());
+            heights[i] = Short.toUnsignedInt(header.getShort());
+            flags[i] = header.getInt();
+
+            if (lengths[i] < 0 || offsets[i] < HEADER_BYTES || offsets[i] + lengths[i] > fileSize) {
+                clearEntry(i);
+            }
+        }
+        return true;
+    }
+
+    private void writeEmptyHeader() throws IOException {
+        for (int i = 0; i < TILES; i++) {
+            clearEntry(i);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION);
+        header.position(HEADER_BYTES).flip();
+        writeFully(channel, header, 0);
+    }
+
+    private void clearEntry(int index) {
+        offsets[index] = 0;
+        lengths[index] = 0;
+        versions[index] = 0;
+        widths[index] = 0;
+        heights[index] = 0;
+        flags[index] = 0;
+    }
+
+    static int indexOf(int localX, int localZ) {
+        return localZ * REGION_SIZE + localX;
+    }
+
+    synchronized int getVersion(int index) {
+        return versions[index];
+    }
+
+    /**
+     * Read a tile without copying its data.
+     */
+    synchronized StoredTile read(int index, TileKey key) throws IOException {
+        if (lengths[index] == 0) {
+            return null;
+        }
+
+        ensureOpen();
+        MappedByteBuffer record = channel.map(FileChannel.MapMode.READ_ONLY, offsets[index], lengths[index]);
+
+        int pixelCount = widths[index] * heights[index];
+        IntBuffer pixels = record.slice(0, pixelCount * Integer.BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().asReadOnlyBuffer();
+        IntBuffer surface = null;
+        if ((flags[index] & FLAG_HEIGHTS) != 0) {
+            surface = record.slice(pixelCount * Integer.BYTES, pixelCount * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().asReadOnlyBuffer();
+        }
+
+        return new StoredTile(key, versions[index], widths[index], heights[index], pixels, surface);
+    }
+
+    /**
+     * Append a tile and point the index at it.
+     *
+     * @return the new version of the tile
+     */
+    synchronized int write(int index, TileImage image, int[] surfaceHeights) throws IOException {
+        boolean withHeights = surfaceHeights != null && surfaceHeights.length == image.argb().length;
+        int pixelCount = image.argb().length;
+        long recordBytes = (long) pixelCount * Integer.BYTES * (withHeights ? 2 : 1);
+        if (recordBytes > Integer.MAX_VALUE || image.width() > 0xFFFF || image.height() > 0xFFFF) {
+            throw new IOException("Tile too large to store: " + image.width() + "x" + image.height());
+        }
+        int length = (int) recordBytes;
+
+        ByteBuffer data = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        data.asIntBuffer().put(image.argb());
+        if (withHeights) {
+            data.position(pixelCount * Integer.BYTES);
+            data.asIntBuffer().put(surfaceHeights);
+        }
+        data.position(0);
+
+        ensureOpen();
+        long offset = fileSize;
+        writeFully(channel, data, offset);
+        fileSize += length;
+
+        garbageBytes += lengths[index];
+        offsets[index] = offset;
+        lengths[index] = length;
+        versions[index]++;
+        widths[index] = image.width();
+        heights[index] = image.height();
+        flags[index] = withHeights ? FLAG_HEIGHTS : 0;
+        writeEntry(index);
+
+        return versions[index];
+    }
+
+    synchronized boolean delete(int index) throws IOException {
+        if (lengths[index] == 0) {
+            return false;
+        }
+
+        ensureOpen();
+        garbageBytes += lengths[index];
+        int version = versions[index];
+        clearEntry(index);
+        // Keep the version so a later write continues counting
+        versions[index] = version;
+        writeEntry(index);
+        return true;
+    }
+
+    private void writeEntry(int index) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        entry.putLong(offsets[index])
+            .putInt(lengths[index])
+            .putInt(versions[index])
+            .putShort((short) widths[index])
+            .putShort((short) heights[index])
+            .putInt(flags[index])
+            .flip();
+        writeFully(channel, entry, 8 + (long) index * ENTRY_BYTES);
+        dirty = true;
+    }
+
+    synchronized long getGarbageBytes() {
+        return garbageBytes;
+    }
+
+    synchronized long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Rewrite the file with only the live records.
+     */
+    synchronized void compact() throws IOException {
+        if (garbageBytes == 0) {
+            return;
+        }
+        ensureOpen();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION);
+
+            long offset = HEADER_BYTES;
+            for (int i = 0; i < TILES; i++) {
+                long newOffset = lengths[i] > 0 ? offset : 0;
+                if (lengths[i] > 0) {
+                    // Copy the record straight from the old file
+                    long copied = 0;
+                    while (copied < lengths[i]) {
+                        copied += channel.transferTo(offsets[i] + copied, lengths[i] - copied, out.position(offset + copied));
+                    }
+                    offset += lengths[i];
+                }
+                header.putLong(newOffset)
+                    .putInt(lengths[i])
+                    .putInt(versions[i])
+                    .putShort((short) widths[i])
+                    .putShort((short) heights[i])
+                    .putInt(flags[i]);
+            }
+            header.flip();
+            writeFully(out, header, 0);
+            out.force(true);
+        }
+
+        // Buffers handed out earlier keep the old mapping alive
+        channel.close();
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Windows refuses to replace a file that is still mapped; keep the
+            // old file until those buffers are collected
+            Files.deleteIfExists(temp);
+            open();
+            throw new IOException("Region still in use, compaction deferred", e);
+        }
+        open();
+        dirty = false;
+    }
+
+    /**
+     * Force the writes since the last call to disk.
+     */
+    synchronized void force() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        ensureOpen();
+        channel.force(false);
+        dirty = false;
+    }
+
+    synchronized void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
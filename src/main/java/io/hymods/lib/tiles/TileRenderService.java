@@ -0,0 +1,704 @@
+package io.hymods.lib.tiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+/**
+ * Renders map tiles off the world thread.
+ *
+ * Tiles are sampled on the world thread with a {@link TileSampler}, then
+ * resolved and rendered by a {@link TileRenderer} on a bounded pool of worker
+ * threads. When a
+ * tile is ready, the listener is called back on the world thread and the slot
+ * is marked initialized in the grid.
+ *
+ * Tiles already being rendered are shared: requesting the same tile of the same
+ * world again (e.g., for two players standing next to each other) waits for the
+ * pending render instead of starting a new one. Tiles that scroll out of a grid
+ * before they finish are cancelled once no grid wants them anymore.
+ *
+ * With a {@link TileCache} set, rendered tiles are stored in it and tiles found
+ * in it are delivered right away. Tiles shown by a grid stay pinned in the cache
+ * until they scroll out of it.
+ *
+ * With a {@link TileDiskStore} set, rendered tiles are also saved to disk, and
+ * tiles missing from the cache are loaded from disk on a worker thread before
+ * being rendered, so tiles survive restarts.
+ *
+ * Tiles changed after they were rendered are refreshed with
+ * {@link #renderDirty(World, TileDirtyTracker, int, TileDeltaListener)}, which
+ * only re-renders the changed rectangle of each tile.
+ *
+ * Usage:
+ * <pre>
+ * TileRenderService renderer = new TileRenderService(TileSampler.surface(320), TileRenderer.heightShaded(), 2, 64);
+ *
+ * // On the world thread
+ * GridUpdateResult update = grid.updateCenter(center);
+ * renderer.renderGridUpdate(world, grid, update, (tile, slot, image) -&gt; hud.setTile(slot, image));
+ * </pre>
+ */
+public class TileRenderService {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private final TileSampler sampler;
+    private final TileRenderer renderer;
+    private final ThreadPoolExecutor executor;
+
+    // Renders in progress, shared between grids
+    private final Map<TileKey, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    // Tiles each grid is waiting for
+    private final Map<TileGridManager, Map<TileCoord, TileKey>> gridRequests = new ConcurrentHashMap<>();
+
+    // Tiles each grid pinned in the cache
+    private final Map<TileGridManager, Map<TileCoord, TileKey>> gridPins = new ConcurrentHashMap<>();
+
+    private volatile TileCache cache = null;
+    private volatile TileDiskStore diskStore = null;
+
+    private final AtomicLong rendered = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong deltas = new AtomicLong();
+
+    // Serializes patching of cached and stored tiles with deltas
+    private final Object patchLock = new Object();
+
+    /**
+     * @param sampler Reads tile data on the world thread
+     * @param renderer Renders sampled tiles on worker threads
+     * @param workerThreads Number of worker threads
+     * @param maxQueuedTiles Maximum number of tiles waiting for a worker; further tiles are rejected
+     */
+    public TileRenderService(TileSampler sampler, TileRenderer renderer, int workerThreads, int maxQueuedTiles) {
+        this.sampler = sampler;
+        this.renderer = renderer;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            Math.max(1, workerThreads), Math.max(1, workerThreads),
+            30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, maxQueuedTiles)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "HymodsLib-TileRender-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Render the tiles of a grid update. Must be called on the world thread.
+     *
+     * Pending tiles of the grid that are no longer in it are cancelled first.
+     * Tiles that are not loaded or that are rejected because the queue is full
+     * are skipped and their slot stays uninitialized.
+     *
+     * @param world The world the grid shows
+     * @param grid The grid
+     * @param update The result of {@link TileGridManager#updateCenter(TileCoord)}
+     * @param listener Called on the world thread when a tile is ready
+     */
+    public void renderGridUpdate(World world, TileGridManager grid, TileGridManager.GridUpdateResult update, TileReadyListener listener) {
+        cancelOutsideGrid(grid);
+        if (!update.needsGeneration()) {
+            return;
+        }
+
+        TileCache tileCache = this.cache;
+        Map<TileCoord, TileKey> pending = gridRequests.computeIfAbsent(grid, _ -> new ConcurrentHashMap<>());
+        for (TileCoord tile : update.tilesToGenerate()) {
+            Integer slot = update.slotAssignments().get(tile);
+            if (slot == null || pending.containsKey(tile)) {
+                continue;
+            }
+
+            TileKey key = TileKey.of(world.getName(), tile, grid.getTileSizeChunks());
+            if (tileCache != null) {
+                pin(tileCache, grid, tile, key);
+            }
+            TileImage cached = lookup(key);
+            if (cached != null) {
+                listener.onTileReady(tile, slot, cached);
+                grid.markSlotInitialized(slot);
+                continue;
+            }
+
+            InFlight render = acquire(world, key);
+            if (render == null) {
+                continue;
+            }
+            pending.put(tile, key);
+
+            render.result.whenComplete((image, error) -> world.execute(() -> {
+                if (!pending.remove(tile, key)) {
+                    // Cancelled in the meantime
+                    return;
+                }
+                release(key);
+
+                if (error != null || image == null) {
+                    return;
+                }
+                if (grid.findSlotForTile(tile) == slot && !grid.isSlotInitialized(slot)) {
+                    listener.onTileReady(tile, slot, image);
+                    grid.markSlotInitialized(slot);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Render a single tile. Must be called on the world thread.
+     *
+     * @param world The world
+     * @param tile The tile
+     * @param tileSizeChunks Size of the tile in chunks
+     * @return The rendered tile; completes with null if the tile is not loaded
+     *         or the queue is full
+     */
+    public CompletableFuture<TileImage> render(World world, TileCoord tile, int tileSizeChunks) {
+        TileKey key = TileKey.of(world.getName(), tile, tileSizeChunks);
+        TileImage cached = lookup(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        InFlight render = acquire(world, key);
+        if (render == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Callers of this method can't cancel, so the interest is released on completion
+        return render.result.whenComplete((_, _) -> release(key));
+    }
+
+    /**
+     * Start rendering tiles a player is predicted to need soon, so they are in
+     * the cache by the time the grid asks for them. Must be called on the world
+     * thread. Does nothing without a cache.
+     *
+     * @param world The world
+     * @param prefetcher The player's prefetcher
+     * @param maxTiles Maximum number of tiles to start
+     * @return The number of tiles started
+     */
+    public int prefetch(World world, TilePrefetcher prefetcher, int maxTiles) {
+        TileCache tileCache = this.cache;
+        if (tileCache == null) {
+            return 0;
+        }
+
+        int started = 0;
+        TilePrefetcher.Prefetch next;
+        while (started < maxTiles && (next = prefetcher.poll()) != null) {
+            TileCoord tile = next.tile();
+            TileKey key = TileKey.of(world.getName(), tile, prefetcher.getTileSizeChunks());
+            if (tileCache.contains(key)) {
+                prefetcher.markRequested(tile);
+                continue;
+            }
+            if (inFlight.containsKey(key)) {
+                continue;
+            }
+
+            CompletableFuture<TileImage> result = render(world, tile, prefetcher.getTileSizeChunks());
+            if (result.isDone() && result.getNow(null) == null) {
+                // Not loaded or queue full; planned again on the next update
+                continue;
+            }
+            prefetcher.markRequested(tile);
+            result.whenComplete((image, _) -> {
+                if (image == null) {
+                    world.execute(() -> prefetcher.clearRequested(tile));
+                }
+            });
+            started++;
+        }
+        return started;
+    }
+
+    /**
+     * Re-render the changed rectangles of tiles. Must be called on the world
+     * thread.
+     *
+     * Only tiles that were rendered before (found in the cache or on disk) are
+     * refreshed, unless there is neither a cache nor a disk store; the disk is
+     * checked on a worker thread. Regions of tiles that are still being rendered
+     * are marked dirty again for a later call. The cached and stored tiles are
+     * patched, and each delta is passed to the listener on the world thread so
+     * it can be sent to players showing the tile.
+     *
+     * Zoomed-out tiles are not refreshed by this method; use
+     * {@link TilePyramid#renderDirty(World, TileDirtyTracker, int, TileDeltaListener)}
+     * to also drop the {@link TilePyramid} tiles covering each changed tile.
+     *
+     * @param world The world
+     * @param tracker The dirty tracker
+     * @param maxTiles Maximum number of tiles to re-render
+     * @param listener Called on the world thread with each re-rendered rectangle
+     * @return The number of tiles started
+     */
+    public int renderDirty(World world, TileDirtyTracker tracker, int maxTiles, TileDeltaListener listener) {
+        List<TileDirtyTracker.DirtyRegion> regions = new ArrayList<>();
+        tracker.pollDue(world.getName(), System.currentTimeMillis(), maxTiles, regions);
+
+        int started = 0;
+        for (TileDirtyTracker.DirtyRegion region : regions) {
+            TileKey key = region.key();
+            TileCache tileCache = this.cache;
+            TileDiskStore store = this.diskStore;
+            if ((tileCache == null && store == null) || (tileCache != null && tileCache.contains(key))) {
+                if (reRender(world, tracker, region, listener)) {
+                    started++;
+                }
+            } else if (store != null) {
+                // Reading the region header may hit the disk: check on a worker,
+                // then sample back on the world thread
+                try {
+                    executor.execute(() -> {
+                        if (store.getVersion(key) > 0) {
+                            world.execute(() -> reRender(world, tracker, region, listener));
+                        }
+                    });
+                    started++;
+                } catch (RejectedExecutionException e) {
+                    rejected.incrementAndGet();
+                    requeue(tracker, region);
+                }
+            }
+        }
+        return started;
+    }
+
+    /**
+     * Sample a dirty region and re-render it on a worker. Runs on the world
+     * thread.
+     *
+     * @return true if the render was started
+     */
+    private boolean reRender(World world, TileDirtyTracker tracker, TileDirtyTracker.DirtyRegion region,
+            TileDeltaListener listener) {
+        TileKey key = region.key();
+        if (inFlight.containsKey(key)) {
+            // The full render may have sampled the tile before the change
+            requeue(tracker, region);
+            return false;
+        }
+
+        // Renderers may shade a pixel by the one to its north: sample the row
+        // north of the region, and re-render the row south of it too
+        int tileSizeBlocks = key.tileSizeChunks() * TileCoord.BLOCKS_PER_CHUNK;
+        int extraRow = region.z() > 0 ? 1 : 0;
+        int height = Math.min(region.height() + 1, tileSizeBlocks - region.z());
+        int originX = (int) key.tile().minBlockX(key.tileSizeChunks()) + region.x();
+        int originZ = (int) key.tile().minBlockZ(key.tileSizeChunks()) + region.z() - extraRow;
+        TileSampler.Sample sample = sampler.sample(world, key.tile(), originX, originZ, region.width(), height + extraRow);
+        if (sample == null) {
+            return false;
+        }
+
+        try {
+            executor.execute(() -> {
+                TileDelta delta;
+                try {
+                    TileSnapshot snapshot = sample.resolve();
+                    TileImage image = renderer.render(snapshot);
+                    int[] argb = Arrays.copyOfRange(image.argb(), extraRow * region.width(), image.argb().length);
+                    delta = new TileDelta(key, region.x(), region.z(), region.width(), height, argb);
+                    patchStored(delta, snapshot, extraRow);
+                } catch (RuntimeException e) {
+                    LOGGER.atWarning().log("Failed to re-render " + key.tile() + ": " + e.getMessage());
+                    return;
+                }
+                deltas.incrementAndGet();
+                world.execute(() -> listener.onTileDelta(delta));
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            // Try again later
+            requeue(tracker, region);
+            return false;
+        }
+    }
+
+    /**
+     * Mark a dirty region dirty again, to be re-rendered on a later call.
+     */
+    private static void requeue(TileDirtyTracker tracker, TileDirtyTracker.DirtyRegion region) {
+        TileKey key = region.key();
+        int minX = (int) key.tile().minBlockX(key.tileSizeChunks()) + region.x();
+        int minZ = (int) key.tile().minBlockZ(key.tileSizeChunks()) + region.z();
+        tracker.markDirty(key.worldName(), minX, minZ, minX + region.width() - 1, minZ + region.height() - 1);
+    }
+
+    /**
+     * Cancel pending tiles of a grid that are no longer in it.
+     *
+     * @param grid The grid
+     */
+    public void cancelOutsideGrid(TileGridManager grid) {
+        Map<TileCoord, TileKey> pending = gridRequests.get(grid);
+        if (pending != null) {
+            Iterator<Map.Entry<TileCoord, TileKey>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<TileCoord, TileKey> entry = iterator.next();
+                if (grid.findSlotForTile(entry.getKey()) < 0) {
+                    iterator.remove();
+                    release(entry.getValue());
+                }
+            }
+        }
+
+        Map<TileCoord, TileKey> pins = gridPins.get(grid);
+        TileCache tileCache = this.cache;
+        if (pins != null && tileCache != null) {
+            Iterator<Map.Entry<TileCoord, TileKey>> iterator = pins.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<TileCoord, TileKey> entry = iterator.next();
+                if (grid.findSlotForTile(entry.getKey()) < 0) {
+                    iterator.remove();
+                    tileCache.release(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancel all pending tiles of a grid, e.g. when its player leaves.
+     *
+     * @param grid The grid
+     */
+    public void cancelGrid(TileGridManager grid) {
+        Map<TileCoord, TileKey> pending = gridRequests.remove(grid);
+        if (pending != null) {
+            for (TileKey key : pending.values()) {
+                release(key);
+            }
+        }
+
+        Map<TileCoord, TileKey> pins = gridPins.remove(grid);
+        TileCache tileCache = this.cache;
+        if (pins != null && tileCache != null) {
+            for (TileKey key : pins.values()) {
+                tileCache.release(key);
+            }
+        }
+    }
+
+    /**
+     * Set the cache rendered tiles are stored in and looked up from.
+     *
+     * @param cache The cache, or null to always render
+     */
+    public void setCache(TileCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Get the cache rendered tiles are stored in.
+     */
+    public TileCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Set the disk store rendered tiles are saved to and loaded from.
+     *
+     * @param diskStore The disk store, or null to keep tiles in memory only
+     */
+    public void setDiskStore(TileDiskStore diskStore) {
+        this.diskStore = diskStore;
+    }
+
+    /**
+     * Get the disk store rendered tiles are saved to.
+     */
+    public TileDiskStore getDiskStore() {
+        return diskStore;
+    }
+
+    /**
+     * Get the number of tiles being rendered.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Get the render counters.
+     */
+    public Stats getStats() {
+        return new Stats(rendered.get(), deduplicated.get(), cancelled.get(), rejected.get(), deltas.get());
+    }
+
+    /**
+     * Stop the worker threads, cancelling queued tiles.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        for (InFlight render : inFlight.values()) {
+            render.result.cancel(false);
+        }
+        inFlight.clear();
+        gridRequests.clear();
+        gridPins.clear();
+    }
+
+    private InFlight acquire(World world, TileKey key) {
+        synchronized (inFlight) {
+            InFlight existing = inFlight.get(key);
+            if (existing != null) {
+                existing.interest++;
+                deduplicated.incrementAndGet();
+                return existing;
+            }
+        }
+
+        // Tiles found on disk don't need sampling; they are loaded by the worker
+        TileDiskStore store = this.diskStore;
+        TileSampler.Sample sample = null;
+        if (store == null) {
+            sample = sampler.sampleTile(world, key.tile(), key.tileSizeChunks());
+            if (sample == null) {
+                return null;
+            }
+        }
+
+        InFlight render = new InFlight();
+        synchronized (inFlight) {
+            try {
+                TileSampler.Sample initial = sample;
+                render.task = executor.submit(initial != null
+                    ? () -> renderTile(key, initial, render)
+                    : () -> loadTile(world, key, store, render));
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            inFlight.put(key, render);
+        }
+        return render;
+    }
+
+    /**
+     * Load a tile from disk. Runs on a worker thread. Tiles not found on disk
+     * are sampled on the world thread, then rendered.
+     */
+    private void loadTile(World world, TileKey key, TileDiskStore store, InFlight render) {
+        try {
+            StoredTile storedTile = store.read(key);
+            if (storedTile != null) {
+                TileImage image = storedTile.toImage();
+                TileCache tileCache = this.cache;
+                if (tileCache != null) {
+                    tileCache.put(key, image);
+                }
+                render.result.complete(image);
+                return;
+            }
+        } catch (RuntimeException e) {
+            LOGGER.atWarning().log("Failed to load " + key.tile() + ": " + e.getMessage());
+            render.result.completeExceptionally(e);
+            return;
+        }
+
+        world.execute(() -> {
+            if (render.result.isDone()) {
+                // Cancelled in the meantime
+                return;
+            }
+            TileSampler.Sample sample = sampler.sampleTile(world, key.tile(), key.tileSizeChunks());
+            if (sample == null) {
+                render.result.complete(null);
+                return;
+            }
+
+            synchronized (inFlight) {
+                if (render.result.isDone()) {
+                    return;
+                }
+                try {
+                    render.task = executor.submit(() -> renderTile(key, sample, render));
+                } catch (RejectedExecutionException e) {
+                    rejected.incrementAndGet();
+                    render.result.complete(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Render a sampled tile and store it. Runs on a worker thread.
+     */
+    private void renderTile(TileKey key, TileSampler.Sample sample, InFlight render) {
+        try {
+            TileSnapshot snapshot = sample.resolve();
+            TileImage image = renderer.render(snapshot);
+            TileCache tileCache = this.cache;
+            if (tileCache != null) {
+                tileCache.put(key, image);
+            }
+            TileDiskStore store = this.diskStore;
+            if (store != null) {
+                store.write(key, image, snapshot.heights());
+            }
+            rendered.incrementAndGet();
+            render.result.complete(image);
+        } catch (RuntimeException e) {
+            LOGGER.atWarning().log("Failed to render " + key.tile() + ": " + e.getMessage());
+            render.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Run a task on the worker threads.
+     *
+     * @return The task's result; completes with null if the queue is full
+     */
+    CompletableFuture<TileImage> supplyAsync(Supplier<TileImage> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Run a task on the worker threads.
+     *
+     * @return false if the queue is full
+     */
+    boolean runAsync(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Find an already rendered tile in the cache. Tiles on disk are loaded by
+     * {@link #loadTile} instead, off the world thread.
+     */
+    private TileImage lookup(TileKey key) {
+        TileCache tileCache = this.cache;
+        return tileCache != null ? tileCache.get(key) : null;
+    }
+
+    /**
+     * Apply a delta to the cached and stored copies of its tile.
+     */
+    private void patchStored(TileDelta delta, TileSnapshot snapshot, int extraRow) {
+        TileKey key = delta.key();
+        TileCache tileCache = this.cache;
+        TileDiskStore store = this.diskStore;
+
+        synchronized (patchLock) {
+            StoredTile storedTile = store != null ? store.read(key) : null;
+            TileImage base = tileCache != null && tileCache.contains(key) ? tileCache.get(key) : null;
+            if (base == null && storedTile != null) {
+                base = storedTile.toImage();
+            }
+            if (base == null) {
+                return;
+            }
+
+            TileImage patched = delta.applyTo(base);
+            if (tileCache != null && tileCache.contains(key)) {
+                tileCache.put(key, patched);
+            }
+            if (storedTile != null) {
+                int[] heights = storedTile.copyHeights();
+                if (heights != null) {
+                    for (int row = 0; row < delta.height(); row++) {
+                        System.arraycopy(snapshot.heights(), (row + extraRow) * delta.width(),
+                            heights, (delta.z() + row) * base.width() + delta.x(), delta.width());
+                    }
+                }
+                store.write(key, patched, heights);
+            }
+        }
+    }
+
+    private void pin(TileCache tileCache, TileGridManager grid, TileCoord tile, TileKey key) {
+        Map<TileCoord, TileKey> pins = gridPins.computeIfAbsent(grid, _ -> new ConcurrentHashMap<>());
+        if (pins.putIfAbsent(tile, key) == null) {
+            tileCache.acquire(key);
+        }
+    }
+
+    private void release(TileKey key) {
+        synchronized (inFlight) {
+            InFlight render = inFlight.get(key);
+            if (render == null || --render.interest > 0) {
+                return;
+            }
+
+            inFlight.remove(key);
+            if (!render.result.isDone()) {
+                // Not interrupting: an interrupt closes the shared region file channel
+                render.task.cancel(false);
+                render.result.cancel(false);
+                cancelled.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Called on the world thread when a tile of a grid is ready.
+     */
+    @FunctionalInterface
+    public interface TileReadyListener {
+        void onTileReady(TileCoord tile, int slot, TileImage image);
+    }
+
+    /**
+     * Called on the world thread when a changed rectangle of a tile was re-rendered.
+     */
+    @FunctionalInterface
+    public interface TileDeltaListener {
+        void onTileDelta(TileDelta delta);
+    }
+
+    /**
+     * Render counters.
+     *
+     * @param rendered Number of tiles rendered
+     * @param deduplicated Number of requests served by a render already in progress
+     * @param cancelled Number of renders cancelled before they finished
+     * @param rejected Number of tiles rejected because the queue was full
+     * @param deltas Number of changed rectangles re-rendered
+     */
+    public record Stats(long rendered, long deduplicated, long cancelled, long rejected, long deltas) {
+    }
+
+    private static final class InFlight {
+        private final CompletableFuture<TileImage> result = new CompletableFuture<>();
+        private Future<?> task;
+        private int interest = 1;
+    }
+}
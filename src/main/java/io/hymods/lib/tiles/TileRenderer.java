@@ -0,0 +1,64 @@
+package io.hymods.lib.tiles;
+
+/**
+ * Turns a tile snapshot into pixels. Called on a worker thread, so it must only
+ * use the snapshot.
+ */
+@FunctionalInterface
+public interface TileRenderer {
+    
+    /**
+     * Render a snapshot, one pixel per block column.
+     * 
+     * @param snapshot The sampled region
+     * @return The rendered pixels, with the snapshot's width and height
+     */
+    TileImage render(TileSnapshot snapshot);
+    
+    /**
+     * A renderer coloring each column by its block and shading it by the height
+     * difference with the column to the north, giving a relief effect.
+     */
+    static TileRenderer heightShaded() {
+        return snapshot -> {
+            int width = snapshot.width();
+            int height = snapshot.height();
+            int[] argb = new int[width * height];
+            
+            for (int z = 0; z < height; z++) {
+                for (int x = 0; x < width; x++) {
+                    int blockId = snapshot.blockAt(x, z);
+                    if (blockId < 0) {
+                        argb[z * width + x] = 0xFF000000;
+                        continue;
+                    }
+                    
+                    int y = snapshot.heightAt(x, z);
+                    int northY = z > 0 ? snapshot.heightAt(x, z - 1) : y;
+                    int shade = Math.max(-3, Math.min(3, y - northY)) * 12;
+                    argb[z * width + x] = shade(blockColor(blockId), shade);
+                }
+            }
+            
+            return new TileImage(snapshot.tile(), width, height, argb);
+        };
+    }
+    
+    /**
+     * A stable color for a block id, so the same block always looks the same.
+     */
+    private static int blockColor(int blockId) {
+        int hash = blockId * 0x9E3779B1;
+        int r = 64 + ((hash >>> 16) & 0x7F);
+        int g = 64 + ((hash >>> 8) & 0x7F);
+        int b = 64 + (hash & 0x7F);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+    
+    private static int shade(int color, int amount) {
+        int r = Math.max(0, Math.min(255, ((color >> 16) & 0xFF) + amount));
+        int g = Math.max(0, Math.min(255, ((color >> 8) & 0xFF) + amount));
+        int b = Math.max(0, Math.min(255, (color & 0xFF) + amount));
+        return (color & 0xFF000000) | (r << 16) | (g << 8) | b;
+    }
+}
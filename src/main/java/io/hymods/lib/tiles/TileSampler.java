@@ -0,0 +1,152 @@
+package io.hymods.lib.tiles;
+
+import java.util.BitSet;
+
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+import io.hymods.lib.utils.WorldUtils;
+
+/**
+ * Reads the world data needed to render a tile.
+ * 
+ * Sampling happens in two steps: {@link #sample} is called on the world thread
+ * and should only copy raw chunk data, then {@link Sample#resolve()} is called
+ * on a worker thread to turn that copy into a {@link TileSnapshot}. Neither step
+ * may keep references to live world state. A {@link TileSnapshot} is a sample
+ * that resolves to itself, so simple samplers can return one directly.
+ */
+@FunctionalInterface
+public interface TileSampler {
+    
+    /**
+     * Sample a region of a tile. Called on the world thread.
+     * 
+     * @param world The world
+     * @param tile The tile containing the region
+     * @param originX Block X coordinate of the region's first column
+     * @param originZ Block Z coordinate of the region's first row
+     * @param width Width of the region in blocks
+     * @param height Height (Z extent) of the region in blocks
+     * @return The sample, or null if the region is not loaded
+     */
+    @NullableDecl
+    Sample sample(World world, TileCoord tile, int originX, int originZ, int width, int height);
+    
+    /**
+     * Sample a whole tile. Called on the world thread.
+     * 
+     * @param world The world
+     * @param tile The tile
+     * @param tileSizeChunks Size of each tile in chunks
+     * @return The sample, or null if the tile is not loaded
+     */
+    @NullableDecl
+    default Sample sampleTile(World world, TileCoord tile, int tileSizeChunks) {
+        int tileSizeBlocks = tileSizeChunks * TileCoord.BLOCKS_PER_CHUNK;
+        return sample(world, tile, (int) tile.minBlockX(tileSizeChunks), (int) tile.minBlockZ(tileSizeChunks),
+                tileSizeBlocks, tileSizeBlocks);
+    }
+    
+    /**
+     * A sampler reading the highest solid block of every column.
+     * 
+     * Columns are read from the chunk heightmap, then scanned down past blocks
+     * that render as air (see {@link WorldUtils#isAirBlock(BlockType)}). Which
+     * block ids are air is worked out once per id and sample, so most columns
+     * cost a heightmap read and one block read. Regions with chunks that are
+     * not loaded are skipped rather than loading them.
+     * 
+     * @param maxY Highest Y coordinate to scan down from
+     */
+    static TileSampler surface(int maxY) {
+        return (world, tile, originX, originZ, width, height) -> {
+            int minChunkX = Math.floorDiv(originX, TileCoord.BLOCKS_PER_CHUNK);
+            int minChunkZ = Math.floorDiv(originZ, TileCoord.BLOCKS_PER_CHUNK);
+            int maxChunkX = Math.floorDiv(originX + width - 1, TileCoord.BLOCKS_PER_CHUNK);
+            int maxChunkZ = Math.floorDiv(originZ + height - 1, TileCoord.BLOCKS_PER_CHUNK);
+            int chunksX = maxChunkX - minChunkX + 1;
+            WorldChunk[] chunks = new WorldChunk[chunksX * (maxChunkZ - minChunkZ + 1)];
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                    WorldChunk chunk = world.getChunk(ChunkUtil.indexChunk(chunkX, chunkZ));
+                    if (chunk == null) {
+                        return null;
+                    }
+                    chunks[(chunkZ - minChunkZ) * chunksX + (chunkX - minChunkX)] = chunk;
+                }
+            }
+            
+            AirBlocks air = new AirBlocks(BlockType.getAssetMap());
+            int[] heights = new int[width * height];
+            int[] blockIds = new int[width * height];
+            for (int z = 0; z < height; z++) {
+                int blockZ = originZ + z;
+                int localZ = blockZ & (TileCoord.BLOCKS_PER_CHUNK - 1);
+                for (int x = 0; x < width; x++) {
+                    int blockX = originX + x;
+                    int localX = blockX & (TileCoord.BLOCKS_PER_CHUNK - 1);
+                    WorldChunk chunk = chunks[(Math.floorDiv(blockZ, TileCoord.BLOCKS_PER_CHUNK) - minChunkZ) * chunksX
+                        + (Math.floorDiv(blockX, TileCoord.BLOCKS_PER_CHUNK) - minChunkX)];
+                    
+                    // Below maxY (e.g., under a roof) the scan starts inside the terrain
+                    int index = z * width + x;
+                    heights[index] = -1;
+                    blockIds[index] = -1;
+                    for (int y = Math.min(chunk.getHeight(localX, localZ), maxY); y >= 0; y--) {
+                        int blockId = chunk.getBlock(localX, y, localZ);
+                        if (!air.isAir(blockId)) {
+                            heights[index] = y;
+                            blockIds[index] = blockId;
+                            break;
+                        }
+                    }
+                }
+            }
+            
+            return new TileSnapshot(tile, originX, originZ, width, height, heights, blockIds);
+        };
+    }
+    
+    /**
+     * Raw world data copied on the world thread, turned into a snapshot on a
+     * worker thread.
+     */
+    @FunctionalInterface
+    interface Sample {
+        
+        /**
+         * Build the snapshot. Called on a worker thread.
+         */
+        TileSnapshot resolve();
+    }
+    
+    /**
+     * Remembers which block ids render as air, so each id is looked up once.
+     */
+    final class AirBlocks {
+        private final BlockType.AssetMap assetMap;
+        private final BitSet known = new BitSet();
+        private final BitSet air = new BitSet();
+        
+        AirBlocks(BlockType.AssetMap assetMap) {
+            this.assetMap = assetMap;
+        }
+        
+        boolean isAir(int blockId) {
+            if (blockId <= 0) {
+                // Empty
+                return true;
+            }
+            if (!known.get(blockId)) {
+                known.set(blockId);
+                air.set(blockId, WorldUtils.isAirBlock(assetMap.getAsset(blockId)));
+            }
+            return air.get(blockId);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.hymods.lib.tiles;
+
+/**
+ * Immutable copy of the surface of a world region, resolved from a
+ * {@link TileSampler.Sample} so it can be rendered on another thread.
+ * 
+ * The region is usually a whole tile, but can be any rectangle within it (e.g.,
+ * a dirty area that needs re-rendering). Arrays are indexed row by row:
+ * {@code index = localZ * width + localX}.
+ * 
+ * @param tile The tile this region belongs to
+ * @param originX Block X coordinate of the region's first column
+ * @param originZ Block Z coordinate of the region's first row
+ * @param width Width of the region in blocks
+ * @param height Height (Z extent) of the region in blocks
+ * @param heights Y coordinate of the highest solid block of each column, -1 if none
+ * @param blockIds Asset index of the highest solid block of each column, -1 if none
+ */
+public record TileSnapshot(
+    TileCoord tile,
+    int originX,
+    int originZ,
+    int width,
+    int height,
+    int[] heights,
+    int[] blockIds
+) implements TileSampler.Sample {
+    
+    /**
+     * A snapshot is already resolved.
+     */
+    @Override
+    public TileSnapshot resolve() {
+        return this;
+    }
+    
+    /**
+     * Get the surface height of a column.
+     * 
+     * @param localX X offset from the region origin
+     * @param localZ Z offset from the region origin
+     */
+    public int heightAt(int localX, int localZ) {
+        return heights[localZ * width + localX];
+    }
+    
+    /**
+     * Get the surface block of a column.
+     * 
+     * @param localX X offset from the region origin
+     * @param localZ Z offset from the region origin
+     */
+    public int blockAt(int localX, int localZ) {
+        return blockIds[localZ * width + localX];
+    }
+    
+    /**
+     * Check if this snapshot covers its whole tile.
+     */
+    public boolean coversTile(int tileSizeChunks) {
+        int tileSizeBlocks = tileSizeChunks * TileCoord.BLOCKS_PER_CHUNK;
+        return width == tileSizeBlocks && height == tileSizeBlocks
+            && originX == (int) tile.minBlockX(tileSizeChunks)
+            && originZ == (int) tile.minBlockZ(tileSizeChunks);
+    }
+}
@@ -0,0 +1,87 @@
+package io.hymods.lib.utils;
+
+import javax.annotation.Nonnull;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.CancellableEcsEvent;
+import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.event.events.ecs.BreakBlockEvent;
+import com.hypixel.hytale.server.core.event.events.ecs.PlaceBlockEvent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * ECS systems reporting blocks broken and placed by entities to the
+ * {@link WorldUtils} block change listeners
+ *
+ * The events fire before the block is changed, so listeners are called on a
+ * later run of the world thread, and only if the event was not cancelled.
+ */
+public final class BlockChangeSystems {
+
+    private BlockChangeSystems() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Reports broken blocks
+     */
+    public static class Break extends EntityEventSystem<EntityStore, BreakBlockEvent> {
+
+        public Break() {
+            super(BreakBlockEvent.class);
+        }
+
+        @Override
+        public void handle(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk, @Nonnull Store<EntityStore> store,
+                @Nonnull CommandBuffer<EntityStore> commandBuffer, @Nonnull BreakBlockEvent event) {
+            report(store, event, event.getTargetBlock());
+        }
+
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+    }
+
+    /**
+     * Reports placed blocks
+     */
+    public static class Place extends EntityEventSystem<EntityStore, PlaceBlockEvent> {
+
+        public Place() {
+            super(PlaceBlockEvent.class);
+        }
+
+        @Override
+        public void handle(int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk, @Nonnull Store<EntityStore> store,
+                @Nonnull CommandBuffer<EntityStore> commandBuffer, @Nonnull PlaceBlockEvent event) {
+            report(store, event, event.getTargetBlock());
+        }
+
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+    }
+
+    private static void report(Store<EntityStore> store, CancellableEcsEvent event, Vector3i position) {
+        if (position == null) {
+            return;
+        }
+
+        World world = store.getExternalData().getWorld();
+        int x = position.getX();
+        int y = position.getY();
+        int z = position.getZ();
+        world.execute(() -> {
+            if (!event.isCancelled()) {
+                WorldUtils.notifyBlockChanged(world, x, y, z, world.getBlockType(x, y, z));
+            }
+        });
+    }
+}
@@ -0,0 +1,218 @@
+package io.hymods.lib.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * Interned table of display names for asset ids (block ids, NPC role names).
+ *
+ * Formatting an id ("hytale:oak_log" to "Oak Log") splits and rebuilds strings,
+ * but the set of ids is finite and known once assets are loaded. Each id is
+ * formatted once and the result, its namespace and its most recently requested
+ * truncation are kept for every later lookup.
+ *
+ * The table is bounded; ids beyond the limit are formatted on every call
+ * instead of being stored. Only asset ids belong in the table: names that are
+ * not (player names, custom names) go through {@link #formatUninterned(String)}
+ * so they don't take the place of real ids. HymodsLib clears the table and
+ * preloads block ids whenever block assets are loaded.
+ */
+public final class DisplayNameTable {
+    private static final int MAX_ENTRIES = 16384;
+    private static final Map<String, Entry> TABLE = new ConcurrentHashMap<>();
+
+    private DisplayNameTable() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Gets the table entry for an id, computing it on first use
+     *
+     * @param  id The asset id
+     *
+     * @return    The entry, or null if the id is null or empty
+     */
+    public static @NullableDecl Entry get(@NullableDecl String id) {
+        if (id == null || id.isEmpty()) {
+            return null;
+        }
+
+        Entry entry = TABLE.get(id);
+        if (entry != null) {
+            return entry;
+        }
+
+        entry = new Entry(id, computeFormattedName(id), computeNamespace(id));
+        if (TABLE.size() < MAX_ENTRIES) {
+            Entry existing = TABLE.putIfAbsent(id, entry);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the formatted display name of an id (e.g., "hytale:oak_log" becomes
+     * "Oak Log")
+     *
+     * @param  id The asset id
+     *
+     * @return    The formatted name, or "Unknown" if the id is null or empty
+     */
+    public static String formatName(@NullableDecl String id) {
+        Entry entry = get(id);
+        return entry != null ? entry.formattedName() : "Unknown";
+    }
+
+    /**
+     * Formats a name the same way as an id, without adding it to the table. Use
+     * this for names that are not asset ids, e.g. player or custom names.
+     *
+     * @param  name The name
+     *
+     * @return      The formatted name, or "Unknown" if the name is null or empty
+     */
+    public static String formatUninterned(@NullableDecl String name) {
+        if (name == null || name.isEmpty()) {
+            return "Unknown";
+        }
+        Entry entry = TABLE.get(name);
+        return entry != null ? entry.formattedName() : computeFormattedName(name);
+    }
+
+    /**
+     * Gets the formatted display name of an id truncated to a maximum length
+     *
+     * @param  id       The asset id
+     * @param  maxChars Maximum number of characters before "..." is appended
+     *
+     * @return          The truncated formatted name
+     */
+    public static String truncatedName(@NullableDecl String id, int maxChars) {
+        Entry entry = get(id);
+        return entry != null ? entry.truncated(maxChars) : "Unknown";
+    }
+
+    /**
+     * Gets the namespace of an id (e.g., "hytale:oak_log" becomes "hytale")
+     *
+     * @param  id The asset id
+     *
+     * @return    The namespace, "Hytale" for ids without one, or "Unknown"
+     */
+    public static String namespaceOf(@NullableDecl String id) {
+        if (id == null || id.isBlank()) {
+            return "Unknown";
+        }
+        return get(id).namespace();
+    }
+
+    /**
+     * Computes the entries for a set of ids ahead of time, e.g. after assets
+     * are loaded
+     *
+     * @param ids The asset ids
+     */
+    public static void preload(Iterable<String> ids) {
+        for (String id : ids) {
+            get(id);
+        }
+    }
+
+    /**
+     * Removes all entries. HymodsLib calls this when assets are reloaded.
+     */
+    public static void clear() {
+        TABLE.clear();
+    }
+
+    /**
+     * @return The number of interned ids
+     */
+    public static int size() {
+        return TABLE.size();
+    }
+
+    private static String computeFormattedName(String id) {
+        String path = id.contains(":") ? id.split(":", 2)[1] : id;
+        if (path.contains("@")) {
+            path = path.substring(0, path.indexOf("@"));
+        }
+
+        String[] parts = path.split("_");
+        StringBuilder result = new StringBuilder();
+
+        for (String part : parts) {
+            if (!part.isEmpty()) {
+                if (result.length() > 0) {
+                    result.append(" ");
+                }
+                result.append(Character.toUpperCase(part.charAt(0)));
+                if (part.length() > 1) {
+                    result.append(part.substring(1).toLowerCase());
+                }
+            }
+        }
+
+        return result.length() > 0 ? result.toString() : "Unknown";
+    }
+
+    private static String computeNamespace(String id) {
+        int colonIndex = id.indexOf(':');
+        return colonIndex > 0 ? id.substring(0, colonIndex) : "Hytale";
+    }
+
+    /**
+     * Precomputed names for a single id
+     */
+    public static final class Entry {
+        private final String id;
+        private final String formattedName;
+        private final String namespace;
+        private volatile Truncation lastTruncation;
+
+        private Entry(String id, String formattedName, String namespace) {
+            this.id = id;
+            this.formattedName = formattedName;
+            this.namespace = namespace;
+        }
+
+        public String id() {
+            return this.id;
+        }
+
+        public String formattedName() {
+            return this.formattedName;
+        }
+
+        public String namespace() {
+            return this.namespace;
+        }
+
+        /**
+         * Gets the formatted name truncated to a maximum length. The last
+         * requested length is memoized, since callers almost always use the same
+         * one.
+         *
+         * @param  maxChars Maximum number of characters before "..." is appended
+         *
+         * @return          The truncated formatted name
+         */
+        public String truncated(int maxChars) {
+            Truncation truncation = this.lastTruncation;
+            if (truncation != null && truncation.maxChars() == maxChars) {
+                return truncation.text();
+            }
+
+            String text = InspectionUtils.truncate(this.formattedName, maxChars);
+            this.lastTruncation = new Truncation(maxChars, text);
+            return text;
+        }
+    }
+
+    private record Truncation(int maxChars, String text) {
+    }
+}
@@ -21,6 +21,7 @@ import com.hypixel.hytale.server.core.entity.UUIDComponent;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.modules.entity.component.BoundingBox;
 import com.hypixel.hytale.server.core.modules.entity.component.DisplayNameComponent;
+import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
@@ -132,7 +133,9 @@ public class EntityUtils {
                         name = player.getDisplayName();
                         type = "player";
                     } else if (isNPC) {
-                        name = npc.getRoleName() != null ? npc.getRoleName() : "NPC";
+                        // Share the interned role id, so displayName() is a table hit
+                        DisplayNameTable.Entry role = DisplayNameTable.get(npc.getRoleName());
+                        name = role != null ? role.id() : "NPC";
                         type = npc.getRoleName() != null ? npc.getRoleName() : "npc";
                     }
 
@@ -193,6 +196,30 @@ public class EntityUtils {
         return transform != null ? transform.getPosition() : null;
     }
 
+    /**
+     * Moves an entity to a new position Note: This writes the transform directly
+     * and does not play any teleport effects
+     * 
+     * @param  ref      The entity reference
+     * @param  store    The entity store
+     * @param  position The new position
+     * 
+     * @return          true if the position was set
+     */
+    public static boolean setEntityPosition(Ref<EntityStore> ref, Store<EntityStore> store, Vector3d position) {
+        if (ref == null || !ref.isValid()) {
+            return false;
+        }
+
+        TransformComponent transform = store.getComponent(ref, TransformComponent.getComponentType());
+        if (transform == null) {
+            return false;
+        }
+
+        transform.setPosition(position);
+        return true;
+    }
+
     /**
      * Gets the rotation of an entity
      * 
@@ -210,6 +237,33 @@ public class EntityUtils {
         return transform != null ? transform.getRotation() : null;
     }
 
+    /**
+     * Sets the rotation of an entity, and its head rotation if it has one
+     * 
+     * @param  ref      The entity reference
+     * @param  store    The entity store
+     * @param  rotation The new rotation
+     * 
+     * @return          true if successful
+     */
+    public static boolean setEntityRotation(Ref<EntityStore> ref, Store<EntityStore> store, Vector3f rotation) {
+        if (ref == null || !ref.isValid() || rotation == null) {
+            return false;
+        }
+
+        TransformComponent transform = store.getComponent(ref, TransformComponent.getComponentType());
+        if (transform == null) {
+            return false;
+        }
+
+        transform.setRotation(rotation);
+        HeadRotation headRotation = store.getComponent(ref, HeadRotation.getComponentType());
+        if (headRotation != null) {
+            headRotation.setRotation(rotation);
+        }
+        return true;
+    }
+
     /**
      * Gets the velocity of an entity Note: Velocity data may not be available for
      * all entities
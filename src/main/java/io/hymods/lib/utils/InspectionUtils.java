@@ -9,21 +9,19 @@ import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.modules.entitystats.EntityStatMap;
-import com.hypixel.hytale.server.core.modules.entitystats.EntityStatValue;
-import com.hypixel.hytale.server.core.modules.entitystats.asset.DefaultEntityStatTypes;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.npc.entities.NPCEntity;
 
+import io.hymods.lib.data.EntityHealth;
 import io.hymods.lib.data.InspectionLine;
 import io.hymods.lib.data.InspectionOptions;
 import io.hymods.lib.data.InspectionResult;
 import io.hymods.lib.data.InspectionTargetType;
-import io.hymods.lib.inspection.InspectionAddon;
 import io.hymods.lib.inspection.InspectionAddonRegistry;
 
 public class InspectionUtils {
     private static final int DEFAULT_MAX_NAME_LENGTH = 32;
+    public static final String HEALTH_LABEL = "Health";
 
     private InspectionUtils() {
         // utility
@@ -35,7 +33,7 @@ public class InspectionUtils {
         }
 
         InspectionOptions effectiveOptions = options != null ? options : InspectionOptions.defaults();
-        int clampedMaxNameLength = effectiveOptions.maxNameLength() <= 0 ? DEFAULT_MAX_NAME_LENGTH : effectiveOptions.maxNameLength();
+        int clampedMaxNameLength = clampMaxNameLength(effectiveOptions);
 
         if (result.isBlockHit()) {
             return inspectBlock(result.blockType(), clampedMaxNameLength, effectiveOptions);
@@ -56,7 +54,7 @@ public class InspectionUtils {
         InspectionOptions effectiveOptions = options != null ? options : InspectionOptions.defaults();
 
         String blockId = blockType.getId();
-        String displayName = truncate(formatName(blockId), maxNameLength);
+        String displayName = DisplayNameTable.truncatedName(blockId, maxNameLength);
 
         List<InspectionLine> lines = new ArrayList<>();
         lines.add(InspectionLine.of("Block", displayName));
@@ -66,7 +64,7 @@ public class InspectionUtils {
         }
 
         if (effectiveOptions.showModName()) {
-            lines.add(InspectionLine.of("Mod", namespaceOf(blockId)));
+            lines.add(InspectionLine.of("Mod", DisplayNameTable.namespaceOf(blockId)));
         }
 
         if (effectiveOptions.showBenchInfo() && blockType.getBench() != null) {
@@ -105,9 +103,7 @@ public class InspectionUtils {
             lines.add(InspectionLine.of("Processing Time", "Planned (EA)"));
         }
 
-        for (InspectionAddon addon : InspectionAddonRegistry.getAddons()) {
-            addon.augmentBlock(blockType, lines);
-        }
+        InspectionAddonRegistry.augmentBlock(blockType, lines);
 
         return new InspectionResult(InspectionTargetType.BLOCK, displayName, blockId, true, List.copyOf(lines));
     }
@@ -119,11 +115,23 @@ public class InspectionUtils {
 
         InspectionOptions effectiveOptions = options != null ? options : InspectionOptions.defaults();
 
+        NPCEntity npc = store.getComponent(entityRef, NPCEntity.getComponentType());
+        String roleName = npc != null ? npc.getRoleName() : null;
+
         String name = EntityUtils.getEntityDisplayName(entityRef, store);
         if (name == null || name.isBlank() || "Entity".equals(name)) {
-            name = fallbackName != null ? fallbackName : "Entity";
+            // The raycast name: a player display name or an NPC role name
+            name = fallbackName;
+        }
+        if (name == null) {
+            name = "Entity";
+        } else if (name.equals(roleName)) {
+            // Role names are asset ids, the only names kept in the table
+            name = DisplayNameTable.truncatedName(name, maxNameLength);
+        } else {
+            // Player and custom names are unbounded, keep them out of the table
+            name = truncate(DisplayNameTable.formatUninterned(name), maxNameLength);
         }
-        name = truncate(formatName(name), maxNameLength);
 
         String entityType = resolveEntityType(store, entityRef);
         if ("npc".equals(entityType) && (fallbackName != null && !fallbackName.isBlank())) {
@@ -135,17 +143,10 @@ public class InspectionUtils {
         lines.add(InspectionLine.of("Type", entityType));
 
         if (effectiveOptions.showEntityHealth()) {
-            String healthText = "Unknown";
-            EntityHealth health = getHealth(store, entityRef);
-            if (health != null) {
-                healthText = health.current().intValue() + "/" + health.max().intValue();
-            }
-            lines.add(InspectionLine.of("Health", healthText));
+            lines.add(healthLine(getHealth(store, entityRef)));
         }
 
-        for (InspectionAddon addon : InspectionAddonRegistry.getAddons()) {
-            addon.augmentEntity(store, entityRef, lines);
-        }
+        InspectionAddonRegistry.augmentEntity(store, entityRef, lines);
 
         return new InspectionResult(InspectionTargetType.ENTITY, name, null, false, List.copyOf(lines));
     }
@@ -164,54 +165,28 @@ public class InspectionUtils {
         return "entity";
     }
 
-    private record EntityHealth(Float current, Float max) {
-    }
-
-    private static @NullableDecl EntityHealth getHealth(Store<EntityStore> store, Ref<EntityStore> entityRef) {
-        try {
-            EntityStatMap stats = store.getComponent(entityRef, EntityStatMap.getComponentType());
-            if (stats == null) {
-                return null;
-            }
-
-            int healthIndex = DefaultEntityStatTypes.getHealth();
-            EntityStatValue health = stats.get(healthIndex);
-            if (health == null) {
-                return null;
-            }
-
-            return new EntityHealth(health.get(), health.getMax());
-        } catch (Throwable ignored) {
-            return null;
+    public static int clampMaxNameLength(@NullableDecl InspectionOptions options) {
+        if (options == null || options.maxNameLength() <= 0) {
+            return DEFAULT_MAX_NAME_LENGTH;
         }
+        return options.maxNameLength();
     }
 
-    public static String formatName(@NullableDecl String id) {
-        if (id == null || id.isEmpty()) {
-            return "Unknown";
-        }
-
-        String path = id.contains(":") ? id.split(":", 2)[1] : id;
-        if (path.contains("@")) {
-            path = path.substring(0, path.indexOf("@"));
+    public static InspectionLine healthLine(@NullableDecl EntityHealth health) {
+        String healthText = "Unknown";
+        if (health != null) {
+            healthText = (int) health.current() + "/" + (int) health.max();
         }
+        return InspectionLine.of(HEALTH_LABEL, healthText);
+    }
 
-        String[] parts = path.split("_");
-        StringBuilder result = new StringBuilder();
-
-        for (String part : parts) {
-            if (!part.isEmpty()) {
-                if (result.length() > 0) {
-                    result.append(" ");
-                }
-                result.append(Character.toUpperCase(part.charAt(0)));
-                if (part.length() > 1) {
-                    result.append(part.substring(1).toLowerCase());
-                }
-            }
-        }
+    public static @NullableDecl EntityHealth getHealth(Store<EntityStore> store, Ref<EntityStore> entityRef) {
+        return StatUtils.getHealth(entityRef, store);
+    }
 
-        return result.length() > 0 ? result.toString() : "Unknown";
+    public static String formatName(@NullableDecl String id) {
+        // Callers may pass any string; only known asset ids are interned
+        return DisplayNameTable.formatUninterned(id);
     }
 
     public static String truncate(@NullableDecl String text, int maxChars) {
@@ -224,14 +199,6 @@ public class InspectionUtils {
         return text.substring(0, maxChars) + "...";
     }
 
-    private static String namespaceOf(@NullableDecl String id) {
-        if (id == null || id.isBlank()) {
-            return "Unknown";
-        }
-        int colonIndex = id.indexOf(':');
-        return colonIndex > 0 ? id.substring(0, colonIndex) : "Hytale";
-    }
-
     private static String safe(@NullableDecl String preferred, @NullableDecl String fallback) {
         if (preferred != null && !preferred.isBlank()) {
             return preferred;
@@ -1,5 +1,7 @@
 package io.hymods.lib.utils;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 
 import com.hypixel.hytale.component.Holder;
@@ -10,6 +12,7 @@ import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.modules.entity.component.DisplayNameComponent;
+import com.hypixel.hytale.server.core.modules.entity.component.Frozen;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.npc.INonPlayerCharacter;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
@@ -17,6 +20,8 @@ import com.hypixel.hytale.server.npc.NPCPlugin;
 import com.hypixel.hytale.server.npc.entities.NPCEntity;
 import com.hypixel.hytale.server.npc.role.Role;
 
+import io.hymods.lib.data.EntityHealth;
+
 import it.unimi.dsi.fastutil.Pair;
 
 /**
@@ -25,10 +30,62 @@ import it.unimi.dsi.fastutil.Pair;
 public class NPCUtils {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
+    // Role name -> role index, cleared with invalidateRoleCache() whenever NPC assets are loaded
+    private static final Map<String, Integer> ROLE_INDEX_CACHE = new ConcurrentHashMap<>();
+
     private NPCUtils() {
         // Prevent instantiation
     }
 
+    /**
+     * Gets the role index for a role name, caching the lookup
+     * 
+     * @param  roleName The NPC role name
+     * 
+     * @return          The role index, or -1 if the role is unknown
+     */
+    public static int getRoleIndex(String roleName) {
+        if (roleName == null) {
+            return -1;
+        }
+
+        Integer cached = ROLE_INDEX_CACHE.get(roleName);
+        if (cached != null) {
+            return cached;
+        }
+
+        NPCPlugin npcPlugin = NPCPlugin.get();
+        if (npcPlugin == null) {
+            return -1;
+        }
+
+        int roleIndex = npcPlugin.getIndex(roleName);
+        if (roleIndex >= 0) {
+            // Only cache known roles so roles added by a later asset load are picked up
+            ROLE_INDEX_CACHE.put(roleName, roleIndex);
+        }
+        return roleIndex;
+    }
+
+    /**
+     * Clears the cached role indices. HymodsLib calls this whenever NPC role
+     * assets are loaded.
+     */
+    public static void invalidateRoleCache() {
+        ROLE_INDEX_CACHE.clear();
+    }
+
+    /**
+     * Drops a single cached role index, e.g. after a spawn using it failed
+     * 
+     * @param roleName The NPC role name
+     */
+    public static void invalidateRoleIndex(String roleName) {
+        if (roleName != null) {
+            ROLE_INDEX_CACHE.remove(roleName);
+        }
+    }
+
     /**
      * Spawns an NPC at a location
      * 
@@ -84,17 +141,36 @@ public class NPCUtils {
      * @return            The spawned NPC reference, or null if failed
      */
     public static Ref<EntityStore> spawnCustomNPC(World world, String roleName, Vector3d position, Vector3f rotation, BiConsumer<NPCEntity, Holder<EntityStore>> customizer) {
-        final Store<EntityStore> store = world.getEntityStore().getStore();
         final NPCPlugin npcPlugin = NPCPlugin.get();
         if (npcPlugin == null) {
             return null;
         }
 
-        int roleIndex = npcPlugin.getIndex(roleName);
+        int roleIndex = getRoleIndex(roleName);
         if (roleIndex < 0) {
             return null;
         }
 
+        Ref<EntityStore> ref = spawnCustomNPC(npcPlugin, world.getEntityStore().getStore(), roleIndex, position, rotation, customizer);
+        if (ref == null) {
+            invalidateRoleIndex(roleName);
+        }
+        return ref;
+    }
+
+    /**
+     * Spawns an NPC from an already resolved role index
+     * 
+     * @param  npcPlugin  The NPC plugin
+     * @param  store      The entity store
+     * @param  roleIndex  The NPC role index (see {@link #getRoleIndex(String)})
+     * @param  position   The spawn position
+     * @param  rotation   The spawn rotation
+     * @param  customizer Optional callback to customize the NPC before spawning
+     * 
+     * @return            The spawned NPC reference, or null if failed
+     */
+    public static Ref<EntityStore> spawnCustomNPC(NPCPlugin npcPlugin, Store<EntityStore> store, int roleIndex, Vector3d position, Vector3f rotation, BiConsumer<NPCEntity, Holder<EntityStore>> customizer) {
         Pair<Ref<EntityStore>, NPCEntity> result = npcPlugin.spawnEntity(
             store,
             roleIndex,
@@ -229,6 +305,41 @@ public class NPCUtils {
         return true;
     }
 
+    /**
+     * Freezes or unfreezes an NPC. Frozen NPCs are skipped by the engine's role,
+     * sensor and movement systems until unfrozen.
+     * 
+     * @param  ref    The NPC reference
+     * @param  store  The entity store
+     * @param  frozen true to freeze the NPC, false to unfreeze it
+     * 
+     * @return        true if the NPC's frozen state was set
+     */
+    public static boolean setNPCFrozen(Ref<EntityStore> ref, Store<EntityStore> store, boolean frozen) {
+        if (ref == null || !ref.isValid()) {
+            return false;
+        }
+
+        if (frozen) {
+            store.ensureComponent(ref, Frozen.getComponentType());
+        } else {
+            store.tryRemoveComponent(ref, Frozen.getComponentType());
+        }
+        return true;
+    }
+
+    /**
+     * Checks if an NPC is frozen
+     * 
+     * @param  ref   The NPC reference
+     * @param  store The entity store
+     * 
+     * @return       true if the NPC is frozen
+     */
+    public static boolean isNPCFrozen(Ref<EntityStore> ref, Store<EntityStore> store) {
+        return ref != null && ref.isValid() && store.getComponent(ref, Frozen.getComponentType()) != null;
+    }
+
     /**
      * Sets the display name of an NPC
      * 
@@ -284,7 +395,7 @@ public class NPCUtils {
             return false;
         }
 
-        int roleIndex = npcPlugin.getIndex(newRoleName);
+        int roleIndex = getRoleIndex(newRoleName);
         if (roleIndex < 0) {
             return false;
         }
@@ -341,10 +452,12 @@ public class NPCUtils {
      * @return       The current health, or -1 if not found
      */
     public static double getNPCHealth(Ref<EntityStore> ref, Store<EntityStore> store) {
-        // This would need access to the stat system
-        // Implementation depends on how Hytale handles entity stats
-        LOGGER.atInfo().log("FIXME: getNPCHealth is not implemented due to stat system limitations.");
-        return -1;
+        if (getNPC(ref, store) == null) {
+            return -1;
+        }
+
+        EntityHealth health = StatUtils.getHealth(ref, store);
+        return health != null ? health.current() : -1;
     }
 
 }
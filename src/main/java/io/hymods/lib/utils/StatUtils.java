@@ -0,0 +1,130 @@
+package io.hymods.lib.utils;
+
+import java.util.function.BiConsumer;
+
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.modules.entitystats.EntityStatMap;
+import com.hypixel.hytale.server.core.modules.entitystats.EntityStatValue;
+import com.hypixel.hytale.server.core.modules.entitystats.asset.DefaultEntityStatTypes;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import io.hymods.lib.data.EntityHealth;
+
+/**
+ * Utility class for reading entity stats
+ */
+public class StatUtils {
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final int UNRESOLVED = Integer.MIN_VALUE;
+
+    // Resolved lazily since stat types are assets; reset with invalidateStatIndices()
+    private static volatile int healthIndex = UNRESOLVED;
+
+    private StatUtils() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Gets the stat index of health, resolving it on first use
+     * 
+     * @return The health stat index, or -1 if stat types are not loaded yet
+     */
+    public static int getHealthIndex() {
+        int index = healthIndex;
+        if (index != UNRESOLVED) {
+            return index;
+        }
+
+        try {
+            index = DefaultEntityStatTypes.getHealth();
+        } catch (RuntimeException e) {
+            LOGGER.atWarning().log("Could not resolve the health stat index: " + e.getMessage());
+            return -1;
+        }
+
+        if (index >= 0) {
+            healthIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Clears the cached stat indices. HymodsLib calls this whenever stat type
+     * assets are loaded.
+     */
+    public static void invalidateStatIndices() {
+        healthIndex = UNRESOLVED;
+    }
+
+    /**
+     * Gets the health of an entity
+     * 
+     * @param  ref   The entity reference
+     * @param  store The entity store
+     * 
+     * @return       The entity's health, or null if it has no health stat
+     */
+    public static @NullableDecl EntityHealth getHealth(Ref<EntityStore> ref, Store<EntityStore> store) {
+        if (ref == null || !ref.isValid()) {
+            return null;
+        }
+
+        int index = getHealthIndex();
+        if (index < 0) {
+            return null;
+        }
+
+        EntityStatMap stats = store.getComponent(ref, EntityStatMap.getComponentType());
+        if (stats == null) {
+            return null;
+        }
+
+        EntityStatValue health = stats.get(index);
+        return health != null ? new EntityHealth(health.get(), health.getMax()) : null;
+    }
+
+    /**
+     * Reads the health of every entity with stats in a single pass over the
+     * store, without allocating per entity
+     * 
+     * @param store    The entity store
+     * @param consumer Receives each entity with its current and maximum health
+     */
+    public static void forEachHealth(Store<EntityStore> store, HealthConsumer consumer) {
+        final int index = getHealthIndex();
+        if (index < 0) {
+            return;
+        }
+
+        BiConsumer<ArchetypeChunk<EntityStore>, CommandBuffer<EntityStore>> reader = (archetypeChunk, _) -> {
+            for (int i = 0; i < archetypeChunk.size(); i++) {
+                EntityStatMap stats = archetypeChunk.getComponent(i, EntityStatMap.getComponentType());
+                if (stats == null) {
+                    continue;
+                }
+
+                EntityStatValue health = stats.get(index);
+                if (health != null) {
+                    consumer.accept(archetypeChunk.getReferenceTo(i), health.get(), health.getMax());
+                }
+            }
+        };
+
+        store.forEachChunk(EntityStatMap.getComponentType(), reader);
+    }
+
+    /**
+     * Receives health values read by {@link StatUtils#forEachHealth}
+     */
+    @FunctionalInterface
+    public interface HealthConsumer {
+        void accept(Ref<EntityStore> ref, float current, float max);
+    }
+
+}
@@ -3,6 +3,7 @@ package io.hymods.lib.utils;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Predicate;
 
 import com.hypixel.hytale.math.util.ChunkUtil;
@@ -18,6 +19,7 @@ import io.hymods.lib.data.BlockInfo;
  * Utility class for world and block operations
  */
 public class WorldUtils {
+    private static final List<BlockChangeListener> BLOCK_CHANGE_LISTENERS = new CopyOnWriteArrayList<>();
 
     private WorldUtils() {
         // Prevent instantiation
@@ -67,17 +69,58 @@ public class WorldUtils {
      * @return           true if the block was set successfully
      */
     public static boolean setBlock(World world, int x, int y, int z, BlockType blockType) {
+        boolean changed = false;
         try {
             long chunkIndex = ChunkUtil.indexChunkFromBlock(x, z);
             WorldChunk chunk = world.getChunk(chunkIndex);
             if (chunk != null) {
                 int blockId = BlockType.getAssetMap().getIndex(blockType.getId());
-                return chunk.setBlock(x, y, z, blockId);
+                changed = chunk.setBlock(x, y, z, blockId);
             }
-            return false;
         } catch (Exception e) {
             return false;
         }
+
+        if (changed) {
+            notifyBlockChanged(world, x, y, z, blockType);
+        }
+        return changed;
+    }
+
+    /**
+     * Registers a listener called after a block is changed through
+     * {@link #setBlock(World, int, int, int, BlockType)} or reported with
+     * {@link #notifyBlockChanged(World, int, int, int, BlockType)}
+     * 
+     * @param listener The listener
+     */
+    public static void addBlockChangeListener(BlockChangeListener listener) {
+        BLOCK_CHANGE_LISTENERS.add(listener);
+    }
+
+    /**
+     * Unregisters a block change listener
+     * 
+     * @param listener The listener
+     */
+    public static void removeBlockChangeListener(BlockChangeListener listener) {
+        BLOCK_CHANGE_LISTENERS.remove(listener);
+    }
+
+    /**
+     * Reports a block change made without {@link #setBlock(World, int, int, int, BlockType)}
+     * (e.g., from an ECS system) to the block change listeners
+     * 
+     * @param world     The world
+     * @param x         X coordinate
+     * @param y         Y coordinate
+     * @param z         Z coordinate
+     * @param blockType The new block type (can be null if unknown)
+     */
+    public static void notifyBlockChanged(World world, int x, int y, int z, BlockType blockType) {
+        for (BlockChangeListener listener : BLOCK_CHANGE_LISTENERS) {
+            listener.onBlockChanged(world, x, y, z, blockType);
+        }
     }
 
     /**
@@ -323,4 +366,12 @@ public class WorldUtils {
         return world.getChunk(chunkIndex) != null;
     }
 
+    /**
+     * Receives block changes
+     */
+    @FunctionalInterface
+    public interface BlockChangeListener {
+        void onBlockChanged(World world, int x, int y, int z, BlockType blockType);
+    }
+
 }
@@ -0,0 +1,121 @@
+package io.hymods.lib.tiles;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares encoded size and encode time of {@link TileEncoder} across tile
+ * sizes, on synthetic terrain rendered with {@link TileRenderer#heightShaded()}.
+ *
+ * For each tile size, key frames of fresh tiles are measured, then delta
+ * frames of the same tiles after a small area was rebuilt, the way a player
+ * building changes a map.
+ *
+ * Run with:
+ * <pre>
+ * java -cp target/classes:target/test-classes io.hymods.lib.tiles.TileEncoderBenchmark [tilesPerSize]
+ * </pre>
+ */
+public class TileEncoderBenchmark {
+    private static final int[] TILE_SIZES_CHUNKS = {1, 2, 4, 8};
+    private static final int WARMUP_ROUNDS = 3;
+
+    // Side of the square area changed between two versions of a tile
+    private static final int EDIT_SIZE = 6;
+
+    public static void main(String[] args) {
+        int tilesPerSize = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+
+        // Let the JIT compile the encoder before measuring
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int tileSizeChunks : TILE_SIZES_CHUNKS) {
+                run(tileSizeChunks, Math.max(1, tilesPerSize / 4));
+            }
+        }
+
+        System.out.println("chunks  pixels  | key bytes  ratio  us/tile | delta bytes  ratio  us/tile");
+        for (int tileSizeChunks : TILE_SIZES_CHUNKS) {
+            Result result = run(tileSizeChunks, tilesPerSize);
+            int pixels = tileSizeChunks * TileCoord.BLOCKS_PER_CHUNK;
+            System.out.printf("%6d  %3dx%-3d | %9.0f  %5.3f  %7.1f | %11.0f  %5.3f  %7.1f%n",
+                tileSizeChunks, pixels, pixels,
+                (double) result.keyFrames().encodedBytes() / tilesPerSize, result.keyFrames().compressionRatio(),
+                result.keyFrames().averageEncodeMicros(),
+                (double) result.deltaFrames().encodedBytes() / tilesPerSize, result.deltaFrames().compressionRatio(),
+                result.deltaFrames().averageEncodeMicros());
+        }
+    }
+
+    private static Result run(int tileSizeChunks, int tiles) {
+        TileRenderer renderer = TileRenderer.heightShaded();
+        TileEncoder keyEncoder = new TileEncoder();
+        TileEncoder deltaEncoder = new TileEncoder();
+        // Only used to check the deltas, kept out of the measured stats
+        TileEncoder checkEncoder = new TileEncoder();
+        Random random = new Random(tileSizeChunks);
+
+        for (int i = 0; i < tiles; i++) {
+            TileCoord tile = new TileCoord(i % 16, i / 16);
+            TileSnapshot snapshot = terrain(tile, tileSizeChunks);
+            TileImage image = renderer.render(snapshot);
+
+            EncodedTile keyFrame = keyEncoder.encode(image, 1);
+            TileImage shown = TileEncoder.decode(keyFrame, null);
+
+            edit(snapshot, random);
+            TileImage edited = renderer.render(snapshot);
+            EncodedTile delta = deltaEncoder.encode(edited, 2, shown, 1);
+            if (!delta.isDelta()) {
+                throw new IllegalStateException("Expected a delta frame for " + tile);
+            }
+
+            // The receiver must end up with what a key frame of the edited tile shows
+            TileImage expected = TileEncoder.decode(checkEncoder.encode(edited, 2), null);
+            if (!Arrays.equals(TileEncoder.decode(delta, shown).argb(), expected.argb())) {
+                throw new IllegalStateException("Delta frame does not reproduce " + tile);
+            }
+        }
+        return new Result(keyEncoder.getStats(), deltaEncoder.getStats());
+    }
+
+    /**
+     * Rolling hills with a few block types by height, and water below sea level.
+     */
+    private static TileSnapshot terrain(TileCoord tile, int tileSizeChunks) {
+        int size = tileSizeChunks * TileCoord.BLOCKS_PER_CHUNK;
+        int originX = (int) tile.minBlockX(tileSizeChunks);
+        int originZ = (int) tile.minBlockZ(tileSizeChunks);
+        int[] heights = new int[size * size];
+        int[] blockIds = new int[size * size];
+
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                double blockX = originX + x;
+                double blockZ = originZ + z;
+                int height = (int) (64 + 12 * Math.sin(blockX / 23.0) * Math.cos(blockZ / 31.0) + 4 * Math.sin((blockX + blockZ) / 7.0));
+                int index = z * size + x;
+                heights[index] = Math.max(height, 58);
+                blockIds[index] = height < 58 ? 1 : height < 62 ? 2 : height < 72 ? 3 : 4;
+            }
+        }
+        return new TileSnapshot(tile, originX, originZ, size, size, heights, blockIds);
+    }
+
+    /**
+     * Raise a small square somewhere in the tile.
+     */
+    private static void edit(TileSnapshot snapshot, Random random) {
+        int startX = random.nextInt(snapshot.width() - EDIT_SIZE);
+        int startZ = random.nextInt(snapshot.height() - EDIT_SIZE);
+        for (int z = startZ; z < startZ + EDIT_SIZE; z++) {
+            for (int x = startX; x < startX + EDIT_SIZE; x++) {
+                int index = z * snapshot.width() + x;
+                snapshot.heights()[index] += 3;
+                snapshot.blockIds()[index] = 5;
+            }
+        }
+    }
+
+    private record Result(TileEncoder.Stats keyFrames, TileEncoder.Stats deltaFrames) {
+    }
+}
@@ -0,0 +1,104 @@
+package io.hymods.lib.tiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the incremental slot assignment of {@link TileGridManager} against a
+ * brute-force diff of the old and new grid windows.
+ */
+class TileGridManagerTest {
+    private static final int[] GRID_SIZES = {1, 3, 5, 7};
+    private static final int MOVES = 2000;
+
+    @Test
+    void randomMovesMatchWindowDiff() {
+        for (int gridSize : GRID_SIZES) {
+            Random random = new Random(gridSize);
+            TileGridManager grid = new TileGridManager(1, gridSize);
+            TileCoord center = null;
+
+            for (int move = 0; move < MOVES; move++) {
+                TileCoord next = nextCenter(random, center, gridSize);
+                Map<TileCoord, Integer> reported = new HashMap<>();
+                int count = grid.updateCenter(next, (tile, slot) -> {
+                    assertNull(reported.put(tile, slot), "Tile reported twice: " + tile);
+                });
+
+                Set<TileCoord> expected = window(next, gridSize);
+                if (center != null) {
+                    expected.removeAll(window(center, gridSize));
+                }
+                assertEquals(expected, reported.keySet(), "New tiles after moving from " + center + " to " + next);
+                assertEquals(expected.size(), count);
+
+                assertGridHolds(grid, next, gridSize);
+                center = next;
+            }
+        }
+    }
+
+    @Test
+    void movesReportSlotsOfTheirTiles() {
+        TileGridManager grid = new TileGridManager(1, 5);
+        grid.updateCenter(new TileCoord(0, 0));
+
+        TileGridManager.GridUpdateResult update = grid.updateCenter(new TileCoord(2, -1));
+        assertEquals(5 * 5 - 3 * 4, update.tilesToGenerate().size());
+        for (TileCoord tile : update.tilesToGenerate()) {
+            assertEquals(grid.slotOf(tile.x(), tile.z()), update.slotAssignments().get(tile).intValue());
+        }
+
+        assertFalse(grid.updateCenter(new TileCoord(2, -1)).needsGeneration());
+    }
+
+    /**
+     * Every tile of the window is in its own slot and no other tile is held.
+     */
+    private static void assertGridHolds(TileGridManager grid, TileCoord center, int gridSize) {
+        Set<TileCoord> window = window(center, gridSize);
+        Set<Integer> slots = new HashSet<>();
+        for (TileCoord tile : window) {
+            int slot = grid.findSlotForTile(tile);
+            assertTrue(slot >= 0, "Tile not in the grid: " + tile);
+            assertTrue(slots.add(slot), "Slot used twice: " + slot);
+        }
+        for (int slot = 0; slot < grid.getTotalSlots(); slot++) {
+            assertTrue(window.contains(grid.getTileAtSlot(slot)), "Stale tile in slot " + slot);
+        }
+        assertEquals(grid.findSlotForTile(center), grid.getCenterSlot());
+    }
+
+    private static Set<TileCoord> window(TileCoord center, int gridSize) {
+        int radius = gridSize / 2;
+        Set<TileCoord> tiles = new HashSet<>();
+        for (int z = center.z() - radius; z <= center.z() + radius; z++) {
+            for (int x = center.x() - radius; x <= center.x() + radius; x++) {
+                tiles.add(new TileCoord(x, z));
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Mostly short steps, with the occasional jump past the whole grid.
+     */
+    private static TileCoord nextCenter(Random random, TileCoord center, int gridSize) {
+        if (center == null) {
+            return new TileCoord(random.nextInt(200) - 100, random.nextInt(200) - 100);
+        }
+        int reach = random.nextInt(10) == 0 ? gridSize * 3 : 2;
+        return new TileCoord(center.x() + random.nextInt(2 * reach + 1) - reach,
+                center.z() + random.nextInt(2 * reach + 1) - reach);
+    }
+}